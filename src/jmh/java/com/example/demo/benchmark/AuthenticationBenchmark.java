@@ -0,0 +1,85 @@
+package com.example.demo.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import com.example.demo.configuration.KeycloakJwtGrantedAuthoritiesConverter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures turning a decoded Keycloak token into Spring Security authorities, both for a token seen
+ * for the first time and for a token that is sent again (the common SPA case).
+ *
+ * @author Amar Pattanshetti
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+	/** Enough distinct tokens that the memoizing converter never sees one twice while it is cached. */
+	private static final int DISTINCT_TOKENS = 1 << 14;
+
+	@Param({ "5", "50" })
+	public int rolesPerClient;
+
+	@Param({ "1", "20" })
+	public int clients;
+
+	private Jwt repeatedToken;
+	private Jwt[] distinctTokens;
+	private int next;
+
+	private KeycloakJwtGrantedAuthoritiesConverter authoritiesConverter;
+	private JwtAuthenticationConverter authenticationConverter;
+
+	@Setup
+	public void setUp() {
+		repeatedToken = BenchmarkTokens.jwt(BenchmarkTokens.keycloakClaims(rolesPerClient, clients, rolesPerClient));
+		distinctTokens = new Jwt[DISTINCT_TOKENS];
+		for (int i = 0; i < DISTINCT_TOKENS; i++) {
+			distinctTokens[i] = BenchmarkTokens.jwt(BenchmarkTokens.keycloakClaims(rolesPerClient, clients, rolesPerClient));
+		}
+
+		authoritiesConverter = new KeycloakJwtGrantedAuthoritiesConverter(DISTINCT_TOKENS / 16, new SimpleMeterRegistry());
+		authenticationConverter = new JwtAuthenticationConverter();
+		authenticationConverter.setJwtGrantedAuthoritiesConverter(new KeycloakJwtGrantedAuthoritiesConverter(new SimpleMeterRegistry()));
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> convertNewToken() {
+		Jwt jwt = distinctTokens[next++ & (DISTINCT_TOKENS - 1)];
+		return authoritiesConverter.convert(jwt);
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> convertRepeatedToken() {
+		return authoritiesConverter.convert(repeatedToken);
+	}
+
+	@Benchmark
+	public AbstractAuthenticationToken authenticateRepeatedToken() {
+		return authenticationConverter.convert(repeatedToken);
+	}
+}
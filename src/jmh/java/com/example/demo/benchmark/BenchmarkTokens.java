@@ -0,0 +1,103 @@
+package com.example.demo.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Builds Keycloak-shaped tokens for the benchmarks.
+ *
+ * @author Amar Pattanshetti
+ */
+
+final class BenchmarkTokens {
+
+	static final String ISSUER = "http://localhost:8081/realms/secure-hello-realm";
+	static final String KEY_ID = "benchmark-key";
+
+	private BenchmarkTokens() {
+	}
+
+	static KeyPair rsaKeyPair() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			return generator.generateKeyPair();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Claims of a Keycloak access token with the given number of realm roles and clients,
+	 * each client carrying {@code rolesPerClient} roles.
+	 */
+	static Map<String, Object> keycloakClaims(int realmRoles, int clients, int rolesPerClient) {
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("iss", ISSUER);
+		claims.put("sub", UUID.randomUUID().toString());
+		claims.put("jti", UUID.randomUUID().toString());
+		claims.put("preferred_username", "bench.user");
+		claims.put("email", "bench.user@example.com");
+		claims.put("name", "Bench User");
+		claims.put("realm_access", Map.of("roles", roles("realm-role-", realmRoles)));
+
+		Map<String, Object> resourceAccess = new LinkedHashMap<>();
+		for (int i = 0; i < clients; i++) {
+			resourceAccess.put("client-" + i, Map.of("roles", roles("client-" + i + "-role-", rolesPerClient)));
+		}
+		claims.put("resource_access", resourceAccess);
+		return claims;
+	}
+
+	static Jwt jwt(Map<String, Object> claims) {
+		Instant now = Instant.now();
+		return Jwt.withTokenValue("token-" + claims.get("jti"))
+				.header("alg", "RS256")
+				.header("kid", KEY_ID)
+				.claims(c -> c.putAll(claims))
+				.issuedAt(now)
+				.expiresAt(now.plusSeconds(3600))
+				.build();
+	}
+
+	static String signedToken(Map<String, Object> claims, RSAPrivateKey privateKey) {
+		Instant now = Instant.now();
+		JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder()
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plusSeconds(3600)));
+		claims.forEach(builder::claim);
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(), builder.build());
+		try {
+			jwt.sign(new RSASSASigner(privateKey));
+		} catch (JOSEException e) {
+			throw new IllegalStateException(e);
+		}
+		return jwt.serialize();
+	}
+
+	private static List<String> roles(String prefix, int count) {
+		List<String> roles = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			roles.add(prefix + i);
+		}
+		return roles;
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.demo.benchmark;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.example.demo.configuration.CachingJwtDecoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures decoding a real RS256-signed Keycloak-shaped token, with and without the
+ * {@link CachingJwtDecoder} in front of the Nimbus decoder.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+	private String token;
+	private NimbusJwtDecoder nimbusDecoder;
+	private CachingJwtDecoder cachingDecoder;
+
+	@Setup
+	public void setUp() {
+		KeyPair keyPair = BenchmarkTokens.rsaKeyPair();
+		token = BenchmarkTokens.signedToken(BenchmarkTokens.keycloakClaims(10, 3, 5),
+				(RSAPrivateKey) keyPair.getPrivate());
+
+		nimbusDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+		nimbusDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(BenchmarkTokens.ISSUER));
+		cachingDecoder = new CachingJwtDecoder(nimbusDecoder, 10_000, new SimpleMeterRegistry());
+	}
+
+	@Benchmark
+	public Jwt verifyEveryTime() {
+		return nimbusDecoder.decode(token);
+	}
+
+	@Benchmark
+	public Jwt cachedVerification() {
+		return cachingDecoder.decode(token);
+	}
+}
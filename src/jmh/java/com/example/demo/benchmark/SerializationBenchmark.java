@@ -0,0 +1,93 @@
+package com.example.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.bean.AdminDashboard;
+import com.example.demo.bean.UserInfo;
+import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.JackSonConfig;
+import com.example.demo.configuration.JsonWriters;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Measures serializing the response DTOs with the application's {@link ObjectMapper}, in the default
+ * configuration and with {@code json.high-throughput.enabled}, either through the mapper or through
+ * the pre-resolved {@link JsonWriters}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "100", "5000" })
+	public int users;
+
+	@Param({ "false", "true" })
+	public boolean highThroughput;
+
+	private ObjectMapper objectMapper;
+	private ObjectWriter userInfoWriter;
+	private ObjectWriter dashboardWriter;
+	private UserInfo userInfo;
+	private AdminDashboard dashboard;
+
+	@Setup
+	public void setUp() {
+		objectMapper = new JackSonConfig(highThroughput).objectMapper();
+		JsonWriters writers = new JsonWriters(objectMapper);
+		userInfoWriter = writers.writerFor(UserInfo.class);
+		dashboardWriter = writers.writerFor(AdminDashboard.class);
+		userInfo = new UserInfo("bench.user", "bench.user@example.com", "Bench User", null, "Keycloak",
+				List.of("ROLE_USER", "ROLE_ADMIN", "ROLE_OFFLINE_ACCESS"));
+
+		List<UserSummary> summaries = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			summaries.add(new UserSummary("user" + i, "user" + i + "@example.com", "User " + i,
+					List.of("user", i % 10 == 0 ? "admin" : "offline_access")));
+		}
+		dashboard = new AdminDashboard("Admin Dashboard", "Welcome to the admin panel", System.currentTimeMillis(),
+				"1", summaries);
+	}
+
+	@Benchmark
+	public byte[] userInfo() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(userInfo);
+	}
+
+	@Benchmark
+	public byte[] userInfoWriter() throws JsonProcessingException {
+		return userInfoWriter.writeValueAsBytes(userInfo);
+	}
+
+	@Benchmark
+	public byte[] adminDashboard() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(dashboard);
+	}
+
+	@Benchmark
+	public byte[] adminDashboardWriter() throws JsonProcessingException {
+		return dashboardWriter.writeValueAsBytes(dashboard);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.service.UserSearchIndex;
+
+/**
+ * Measures {@code /api/admin/users} queries against the {@link UserSearchIndex}, next to filtering
+ * and sorting the full list on every request, and the cost of building the index.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSearchBenchmark {
+
+	private static final String[] FIRST_NAMES = { "Anna", "Bob", "Carla", "David", "Emma", "Farid", "Grace", "Hugo" };
+	private static final String[] LAST_NAMES = { "Smith", "Jones", "Novak", "Rossi", "Tanaka", "Silva", "Kumar" };
+
+	@Param({ "10000", "100000" })
+	public int users;
+
+	private List<UserSummary> directory;
+	private UserSearchIndex index;
+
+	@Setup
+	public void setUp() {
+		directory = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			String name = FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[i % LAST_NAMES.length];
+			directory.add(new UserSummary(String.format("user%06d", i), "user" + i + "@example.com", name,
+					i % 20 == 0 ? List.of("user", "admin") : List.of("user")));
+		}
+		directory = List.copyOf(directory);
+		index = UserSearchIndex.of(directory);
+	}
+
+	@Benchmark
+	public UserSearchIndex.Result prefixSearch() {
+		return index.search("user0012", null, UserSearchIndex.Sort.USERNAME, false, 0, 50);
+	}
+
+	@Benchmark
+	public UserSearchIndex.Result nameAndRoleSortedByEmail() {
+		return index.search("anna sm", "admin", UserSearchIndex.Sort.EMAIL, true, 0, 50);
+	}
+
+	@Benchmark
+	public UserSearchIndex.Result deepPageNoFilter() {
+		return index.search(null, null, UserSearchIndex.Sort.NAME, false, users / 2, 50);
+	}
+
+	@Benchmark
+	public List<UserSummary> filterAndSortFullList() {
+		return directory.stream()
+				.filter(user -> user.roles().contains("admin"))
+				.filter(user -> user.name().toLowerCase(Locale.ROOT).contains("anna"))
+				.sorted((a, b) -> b.email().compareTo(a.email()))
+				.limit(50)
+				.toList();
+	}
+
+	@Benchmark
+	public UserSearchIndex buildIndex() {
+		return UserSearchIndex.of(directory);
+	}
+}
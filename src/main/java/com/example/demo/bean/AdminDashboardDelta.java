@@ -0,0 +1,24 @@
+package com.example.demo.bean;
+
+import java.util.List;
+
+/**
+ * Changes to the admin dashboard's user list since a previous dashboard cursor.
+ *
+ * <p>{@code users} holds added and changed users, {@code removed} the usernames of deleted ones.
+ * When {@code full} is set the change log no longer reaches back to {@code since}; {@code users} is
+ * then the complete list and replaces the client's copy. {@code cursor} is the value to send as
+ * {@code since} on the next poll, {@code timestamp} the wall-clock time of the response.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public record AdminDashboardDelta(String title, String description, String since, String cursor, long timestamp,
+		boolean full,
+		List<UserSummary> users, List<String> removed) {
+
+	public AdminDashboardDelta {
+		users = List.copyOf(users);
+		removed = List.copyOf(removed);
+	}
+}
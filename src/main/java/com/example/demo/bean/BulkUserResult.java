@@ -0,0 +1,10 @@
+package com.example.demo.bean;
+
+/**
+*
+* @author Amar Pattanshetti
+*
+*/
+
+public record BulkUserResult(int index, String username, boolean success, String message) {
+}
@@ -0,0 +1,48 @@
+package com.example.demo.bean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+*
+* @author Amar Pattanshetti
+*
+*/
+
+public record UserPage(int first, int max, String nextCursor, List<UserSummary> users) {
+
+	public UserPage {
+		users = List.copyOf(users);
+	}
+
+	/**
+	 * Encodes the offset of the next page as an opaque cursor.
+	 *
+	 * @param first the offset of the first user of the next page
+	 * @return a URL-safe cursor string
+	 */
+	public static String encodeCursor(int first) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(("first:" + first).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a cursor produced by {@link #encodeCursor(int)}.
+	 *
+	 * @param cursor the cursor sent back by the client
+	 * @return the offset encoded in the cursor
+	 * @throws IllegalArgumentException if the cursor is malformed
+	 */
+	public static int decodeCursor(String cursor) {
+		String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		if (!decoded.startsWith("first:")) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+		int first = Integer.parseInt(decoded.substring("first:".length()));
+		if (first < 0) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+		return first;
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A {@link JwtDecoder} decorator that remembers tokens it has already verified.
+ *
+ * <p>Parsing a bearer token and verifying its RS256 signature is the most expensive step of an
+ * authenticated request, and SPAs send the same token many times per minute. This decorator keys
+ * successfully decoded tokens by the {@link JwtCacheKeys} digest of the raw token, so a repeated token is returned
+ * without re-running signature verification or claim validation.
+ *
+ * <p>Entries expire at the token's {@code exp} claim, the cache is bounded in size, and only
+ * successfully decoded tokens are cached. {@link #invalidateKey(String)} drops every token signed
+ * with a given key id, so a rotated-out key stops being trusted immediately.
+ *
+ * <p>Every decode is timed as {@code security.jwt.decode}, tagged with {@code cache=hit|miss} and
+ * the outcome.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class CachingJwtDecoder implements JwtDecoder {
+
+	/** Upper bound for tokens without an {@code exp} claim. */
+	private static final Duration MAX_CACHE_TTL = Duration.ofMinutes(5);
+
+	private final JwtDecoder delegate;
+	private final Cache<String, Jwt> verifiedTokens;
+	private final Timer hitTimer;
+	private final Timer missTimer;
+	private final Timer failureTimer;
+
+	/**
+	 * @param delegate  the decoder that performs the actual parsing and verification
+	 * @param maxTokens the maximum number of verified tokens to keep
+	 * @param meterRegistry the registry decode timings are recorded in
+	 */
+	public CachingJwtDecoder(JwtDecoder delegate, long maxTokens, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(maxTokens)
+				.expireAfter(Expiry.<String, Jwt>creating((digest, jwt) -> timeToLive(jwt)))
+				.build();
+		this.hitTimer = decodeTimer(meterRegistry, "hit", "success");
+		this.missTimer = decodeTimer(meterRegistry, "miss", "success");
+		this.failureTimer = decodeTimer(meterRegistry, "miss", "error");
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		long start = System.nanoTime();
+		String digest = JwtCacheKeys.of(token);
+		Jwt cached = verifiedTokens.getIfPresent(digest);
+		if (cached != null && (cached.getExpiresAt() == null || cached.getExpiresAt().isAfter(Instant.now()))) {
+			hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return cached;
+		}
+
+		Jwt jwt;
+		try {
+			jwt = delegate.decode(token);
+		} catch (RuntimeException e) {
+			failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		}
+		verifiedTokens.put(digest, jwt);
+		missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return jwt;
+	}
+
+	/**
+	 * Drops every cached token that was signed with the given key id.
+	 *
+	 * @param kid the {@code kid} header of the key that is no longer trusted
+	 */
+	public void invalidateKey(String kid) {
+		verifiedTokens.asMap().values().removeIf(jwt -> kid.equals(jwt.getHeaders().get("kid")));
+	}
+
+	public void invalidateAll() {
+		verifiedTokens.invalidateAll();
+	}
+
+	private static Timer decodeTimer(MeterRegistry meterRegistry, String cache, String outcome) {
+		return Timer.builder("security.jwt.decode")
+				.description("Bearer token decoding and verification")
+				.tag("cache", cache)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private static Duration timeToLive(Jwt jwt) {
+		if (jwt.getExpiresAt() == null) {
+			return MAX_CACHE_TTL;
+		}
+		Duration untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt());
+		return untilExpiry.isNegative() ? Duration.ZERO : untilExpiry;
+	}
+}
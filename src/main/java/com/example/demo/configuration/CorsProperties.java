@@ -12,6 +12,7 @@ public class CorsProperties {
     private List<String> allowedOrigins;
     private List<String> allowedMethods;
     private List<String> allowedHeaders;
+    private List<String> exposedHeaders;
     private boolean allowCredentials;
 	public List<String> getAllowedOrigins() {
 		return allowedOrigins;
@@ -31,6 +32,12 @@ public class CorsProperties {
 	public void setAllowedHeaders(List<String> allowedHeaders) {
 		this.allowedHeaders = allowedHeaders;
 	}
+	public List<String> getExposedHeaders() {
+		return exposedHeaders;
+	}
+	public void setExposedHeaders(List<String> exposedHeaders) {
+		this.exposedHeaders = exposedHeaders;
+	}
 	public boolean isAllowCredentials() {
 		return allowCredentials;
 	}
@@ -14,6 +14,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Security configuration class for defining authentication and authorization rules using Spring Security.
  *
@@ -56,9 +58,11 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class DevSecurityConfig {
 	
 	private final CorsProperties corsProperties;
+	private final MeterRegistry meterRegistry;
 
-    public DevSecurityConfig(CorsProperties corsProperties) {
+    public DevSecurityConfig(CorsProperties corsProperties, MeterRegistry meterRegistry) {
         this.corsProperties = corsProperties;
+        this.meterRegistry = meterRegistry;
     }
 
 	/**
@@ -144,6 +148,7 @@ public class DevSecurityConfig {
         configuration.setAllowedOriginPatterns(corsProperties.getAllowedOrigins());
         configuration.setAllowedMethods(corsProperties.getAllowedMethods());
         configuration.setAllowedHeaders(corsProperties.getAllowedHeaders());
+        configuration.setExposedHeaders(corsProperties.getExposedHeaders());
         configuration.setAllowCredentials(corsProperties.isAllowCredentials());
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -165,7 +170,7 @@ public class DevSecurityConfig {
     JwtAuthenticationConverter jwtAuthenticationConverter() {
         org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter converter = 
             new org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(new KeycloakJwtGrantedAuthoritiesConverter());
+        converter.setJwtGrantedAuthoritiesConverter(new KeycloakJwtGrantedAuthoritiesConverter(meterRegistry));
         return converter;
     }
 }
\ No newline at end of file
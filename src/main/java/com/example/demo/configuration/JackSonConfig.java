@@ -1,10 +1,14 @@
 package com.example.demo.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
 /**
 *
@@ -15,11 +19,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Configuration
 public class JackSonConfig {
 
+	private final boolean highThroughput;
+
+	/**
+	 * @param highThroughput when {@code true}, DTO properties are read through generated accessors
+	 *                       (Blackbird) instead of reflection, and encoding buffers come from a shared
+	 *                       pool rather than a per-thread cache, which suits many short-lived threads
+	 */
+	public JackSonConfig(@Value("${json.high-throughput.enabled:false}") boolean highThroughput) {
+		this.highThroughput = highThroughput;
+	}
+
 	@Bean
 	public ObjectMapper objectMapper() {
-	    ObjectMapper mapper = new ObjectMapper();
+	    ObjectMapper mapper = highThroughput
+	            ? new ObjectMapper(JsonFactory.builder().recyclerPool(JsonRecyclerPools.newConcurrentDequePool()).build())
+	            : new ObjectMapper();
 	    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false); // 👈 ignore unknown fields
+	    if (highThroughput) {
+	        mapper.registerModule(new BlackbirdModule());
+	    }
 	    return mapper;
 	}
 
+	@Bean
+	public JsonWriters jsonWriters(ObjectMapper objectMapper) {
+	    return new JsonWriters(objectMapper);
+	}
+
 }
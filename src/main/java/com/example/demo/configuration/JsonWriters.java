@@ -0,0 +1,46 @@
+package com.example.demo.configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.demo.bean.AdminDashboard;
+import com.example.demo.bean.AdminResponse;
+import com.example.demo.bean.BulkUserResult;
+import com.example.demo.bean.HelloResponse;
+import com.example.demo.bean.UserInfo;
+import com.example.demo.bean.UserPage;
+import com.example.demo.bean.UserSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * {@link ObjectWriter}s for the response DTOs, resolved once at startup.
+ *
+ * <p>A writer created with {@link ObjectMapper#writerFor(Class)} looks up and keeps the root
+ * serializer of its type, so code that serializes DTOs itself should take its writer from here
+ * instead of going through {@link ObjectMapper#writeValueAsBytes(Object)} on every call.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class JsonWriters {
+
+	private static final List<Class<?>> DTO_TYPES = List.of(HelloResponse.class, UserInfo.class, UserSummary.class,
+			UserPage.class, AdminDashboard.class, AdminResponse.class, BulkUserResult.class);
+
+	private final ObjectMapper objectMapper;
+	private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+	public JsonWriters(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		DTO_TYPES.forEach(this::writerFor);
+	}
+
+	/**
+	 * @return the writer for {@code type}, created on first use for types not resolved at startup
+	 */
+	public ObjectWriter writerFor(Class<?> type) {
+		return writers.computeIfAbsent(type, objectMapper::writerFor);
+	}
+}
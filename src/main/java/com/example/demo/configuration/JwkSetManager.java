@@ -0,0 +1,164 @@
+package com.example.demo.configuration;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+/**
+ * Keeps the Keycloak JSON Web Key Set in memory so that token verification never waits on the network.
+ *
+ * <p>The key set is loaded once the application is ready and refreshed on a fixed schedule in the
+ * background. When a token references a {@code kid} that is not known yet, the set is fetched again
+ * on demand, which picks up key rotations before the next scheduled refresh. Each key id triggers at
+ * most one fetch per {@code security.jwt.jwks.min-refetch-interval}, tracked for a bounded number of
+ * key ids, and on-demand fetches for any key ids are spaced at least
+ * {@code security.jwt.jwks.on-demand-spacing} apart, so forged key ids cannot trigger a fetch per
+ * request. Scheduled refreshes do not count against either limit. Because every fetch loads the whole
+ * set, a token signed with a genuinely new key is only rejected if the key was published after the
+ * most recent fetch. If Keycloak is slow or unavailable the last successfully loaded keys keep being
+ * served.
+ *
+ * <p>Listeners registered with {@link #addKeyRemovalListener(Consumer)} are told about key ids that
+ * disappeared from the set, so caches of verified tokens can drop them.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class JwkSetManager implements JWKSource<SecurityContext> {
+
+	private static final Logger log = LoggerFactory.getLogger(JwkSetManager.class);
+
+	/** Upper bound on the size of a downloaded key set. */
+	private static final int JWKS_SIZE_LIMIT = 512 * 1024;
+	/** Unknown key ids whose last on-demand fetch is remembered. */
+	private static final int MAX_TRACKED_KEY_IDS = 1024;
+
+	private final URL jwkSetUrl;
+	private final int connectTimeoutMillis;
+	private final int readTimeoutMillis;
+	private final Duration onDemandSpacing;
+
+	/** Unknown key ids that triggered an on-demand fetch within the last minimum refetch interval. */
+	private final Cache<String, Boolean> refetchedKeyIds;
+	private final List<Consumer<String>> keyRemovalListeners = new CopyOnWriteArrayList<>();
+
+	private volatile JWKSet jwkSet = new JWKSet();
+	private Instant lastOnDemandFetch = Instant.EPOCH;
+
+	public JwkSetManager(
+			@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") URL jwkSetUrl,
+			@Value("${security.jwt.jwks.connect-timeout:PT2S}") Duration connectTimeout,
+			@Value("${security.jwt.jwks.read-timeout:PT2S}") Duration readTimeout,
+			@Value("${security.jwt.jwks.min-refetch-interval:PT30S}") Duration minRefetchInterval,
+			@Value("${security.jwt.jwks.on-demand-spacing:PT1S}") Duration onDemandSpacing) {
+		this.jwkSetUrl = jwkSetUrl;
+		this.connectTimeoutMillis = (int) connectTimeout.toMillis();
+		this.readTimeoutMillis = (int) readTimeout.toMillis();
+		this.onDemandSpacing = onDemandSpacing;
+		this.refetchedKeyIds = Caffeine.newBuilder()
+				.maximumSize(MAX_TRACKED_KEY_IDS)
+				.expireAfterWrite(minRefetchInterval)
+				.build();
+	}
+
+	public void addKeyRemovalListener(Consumer<String> listener) {
+		keyRemovalListeners.add(listener);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void prefetch() {
+		refresh();
+	}
+
+	@Scheduled(initialDelayString = "${security.jwt.jwks.refresh-interval:PT5M}",
+			fixedDelayString = "${security.jwt.jwks.refresh-interval:PT5M}")
+	public void scheduledRefresh() {
+		refresh();
+	}
+
+	/**
+	 * Downloads the key set and swaps it in. On failure the previous keys stay in place.
+	 *
+	 * @return {@code true} if the key set was loaded successfully
+	 */
+	public synchronized boolean refresh() {
+		JWKSet loaded;
+		try {
+			loaded = JWKSet.load(jwkSetUrl, connectTimeoutMillis, readTimeoutMillis, JWKS_SIZE_LIMIT);
+		} catch (IOException | ParseException e) {
+			log.warn("Could not refresh JWK set from {}, keeping {} known key(s): {}",
+					jwkSetUrl, jwkSet.getKeys().size(), e.getMessage());
+			return false;
+		}
+
+		Set<String> removedKeyIds = keyIds(jwkSet);
+		removedKeyIds.removeAll(keyIds(loaded));
+		jwkSet = loaded;
+		removedKeyIds.forEach(kid -> keyRemovalListeners.forEach(listener -> listener.accept(kid)));
+		return true;
+	}
+
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+		List<JWK> matches = jwkSelector.select(jwkSet);
+		if (!matches.isEmpty()) {
+			return matches;
+		}
+
+		Set<String> keyIds = jwkSelector.getMatcher().getKeyIDs();
+		if (keyIds == null || keyIds.isEmpty()) {
+			return matches;
+		}
+		refetchFor(keyIds.iterator().next(), jwkSelector);
+		// Selected again even without a fetch of our own: a concurrent fetch may have loaded the key
+		return jwkSelector.select(jwkSet);
+	}
+
+	private synchronized void refetchFor(String kid, JWKSelector jwkSelector) {
+		if (!jwkSelector.select(jwkSet).isEmpty()) {
+			return;
+		}
+		Instant now = Instant.now();
+		if (refetchedKeyIds.getIfPresent(kid) != null || now.isBefore(lastOnDemandFetch.plus(onDemandSpacing))) {
+			return;
+		}
+		lastOnDemandFetch = now;
+		refetchedKeyIds.put(kid, Boolean.TRUE);
+		refresh();
+	}
+
+	private static Set<String> keyIds(JWKSet set) {
+		Set<String> ids = new HashSet<>();
+		for (JWK key : set.getKeys()) {
+			if (key.getKeyID() != null) {
+				ids.add(key.getKeyID());
+			}
+		}
+		return ids;
+	}
+}
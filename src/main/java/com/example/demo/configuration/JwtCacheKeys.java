@@ -0,0 +1,49 @@
+package com.example.demo.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Cache keys for data derived from a verified {@link Jwt}, such as its authorities or the user-info
+ * payload.
+ *
+ * <p>Keycloak gives every token its own {@code jti}, which together with the expiry identifies the
+ * token; a token without a {@code jti} is keyed by a SHA-256 digest of its value instead. Either way a
+ * key takes a few dozen bytes rather than the multi-kilobyte token, and two different tokens never
+ * share an entry. Keys must only be derived from tokens whose signature has been verified, so a
+ * forged token cannot claim the key of a genuine one. {@link #of(String)} is the digest key of a raw
+ * token, for caches such as the {@link CachingJwtDecoder} that are consulted before verification.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public final class JwtCacheKeys {
+
+	private JwtCacheKeys() {
+	}
+
+	public static String of(Jwt jwt) {
+		String tokenId = jwt.getId();
+		if (tokenId != null && !tokenId.isEmpty()) {
+			return "jti:" + tokenId + ":" + (jwt.getExpiresAt() != null ? jwt.getExpiresAt().getEpochSecond() : "");
+		}
+		return of(jwt.getTokenValue());
+	}
+
+	/**
+	 * @param token a raw, possibly unverified, token
+	 * @return a SHA-256 digest key of the token, equal to {@link #of(Jwt)} for a token without a {@code jti}
+	 */
+	public static String of(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return "sha256:" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
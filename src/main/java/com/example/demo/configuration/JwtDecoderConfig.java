@@ -0,0 +1,50 @@
+package com.example.demo.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Provides the {@link org.springframework.security.oauth2.jwt.JwtDecoder} used by the resource server
+ * in both the {@code dev} and {@code prod} security configurations.
+ *
+ * <p>Signing keys come from the {@link JwkSetManager}, which prefetches and rotates them in the
+ * background, and the decoder is wrapped in a {@link CachingJwtDecoder} so that repeated bearer
+ * tokens skip signature verification. Keys dropped from the key set evict the tokens they signed.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Configuration
+public class JwtDecoderConfig {
+
+	@Bean
+	public CachingJwtDecoder jwtDecoder(
+			JwkSetManager jwkSetManager,
+			@Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+			@Value("${security.jwt.cache.max-entries:10000}") long maxEntries,
+			MeterRegistry meterRegistry) {
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSetManager));
+		// Claims are validated by Spring Security's validators below
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+
+		NimbusJwtDecoder keycloakDecoder = new NimbusJwtDecoder(jwtProcessor);
+		keycloakDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+
+		CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(keycloakDecoder, maxEntries, meterRegistry);
+		jwkSetManager.addKeyRemovalListener(cachingDecoder::invalidateKey);
+		return cachingDecoder;
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "keycloak.admin.pool")
+public class KeycloakAdminPoolProperties {
+
+    /** Maximum number of pooled connections to Keycloak across all routes. */
+    private int maxConnections = 32;
+    /** Maximum number of pooled connections per route (scheme, host and port). */
+    private int maxPerRoute = 32;
+    /** Timeout for establishing a TCP/TLS connection. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Socket read timeout while waiting for a Keycloak response. */
+    private Duration readTimeout = Duration.ofSeconds(10);
+    /** How long a call waits for a free pooled connection. */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    /** Idle connections are closed after this long, before Keycloak or a proxy drops them. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    /** Connections are not reused once they are this old. */
+    private Duration timeToLive = Duration.ofMinutes(5);
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+	public int getMaxPerRoute() {
+		return maxPerRoute;
+	}
+	public void setMaxPerRoute(int maxPerRoute) {
+		this.maxPerRoute = maxPerRoute;
+	}
+	public Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+	public void setConnectTimeout(Duration connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+	public Duration getReadTimeout() {
+		return readTimeout;
+	}
+	public void setReadTimeout(Duration readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+	public Duration getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+	public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+}
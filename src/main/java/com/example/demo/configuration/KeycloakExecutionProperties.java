@@ -0,0 +1,48 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "keycloak.admin.execution")
+public class KeycloakExecutionProperties {
+
+    /**
+     * Runs Keycloak-bound admin requests and their fan-out calls on virtual threads instead of
+     * Tomcat and pool threads. Requires a Java 21+ runtime.
+     */
+    private boolean virtualThreads = false;
+    /** Maximum number of admin API calls in flight toward Keycloak at any time. */
+    private int maxConcurrentCalls = 16;
+    /** How long a call waits for a free slot before failing with 503. */
+    private Duration acquireTimeout = Duration.ofSeconds(10);
+    /** Size of the platform thread pool used for fan-out calls when virtual threads are off. */
+    private int fanOutThreads = 8;
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+	public Duration getAcquireTimeout() {
+		return acquireTimeout;
+	}
+	public void setAcquireTimeout(Duration acquireTimeout) {
+		this.acquireTimeout = acquireTimeout;
+	}
+	public int getFanOutThreads() {
+		return fanOutThreads;
+	}
+	public void setFanOutThreads(int fanOutThreads) {
+		this.fanOutThreads = fanOutThreads;
+	}
+
+}
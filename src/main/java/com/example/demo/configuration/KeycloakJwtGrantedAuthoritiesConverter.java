@@ -5,11 +5,21 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * A custom implementation of the {@link Converter} interface to extract roles from a Keycloak-issued JWT.
@@ -31,6 +41,43 @@ import java.util.stream.Collectors;
 
 public class KeycloakJwtGrantedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
+	/** Upper bound for tokens without an {@code exp} claim. */
+	private static final Duration MAX_CACHE_TTL = Duration.ofMinutes(5);
+	private static final long DEFAULT_MAX_CACHED_TOKENS = 10_000;
+	/** Role names whose authority is shared; beyond that the least used ones are evicted. */
+	private static final long MAX_INTERNED_AUTHORITIES = 1_000;
+
+	private final Cache<String, CachedAuthorities> authoritiesByToken;
+	/** Authorities are immutable value objects, so one instance per role name is shared by all tokens. */
+	private final Cache<String, GrantedAuthority> internedAuthorities = Caffeine.newBuilder()
+			.maximumSize(MAX_INTERNED_AUTHORITIES)
+			.build();
+	private final Timer hitTimer;
+	private final Timer missTimer;
+
+	public KeycloakJwtGrantedAuthoritiesConverter(MeterRegistry meterRegistry) {
+		this(DEFAULT_MAX_CACHED_TOKENS, meterRegistry);
+	}
+
+	/**
+	 * @param maxCachedTokens the maximum number of tokens whose authorities are memoized
+	 * @param meterRegistry   the registry conversion timings are recorded in as {@code security.jwt.authorities}
+	 */
+	public KeycloakJwtGrantedAuthoritiesConverter(long maxCachedTokens, MeterRegistry meterRegistry) {
+		this.authoritiesByToken = Caffeine.newBuilder()
+				.maximumSize(maxCachedTokens)
+				.expireAfter(Expiry.<String, CachedAuthorities>creating((token, cached) -> {
+					Duration untilExpiry = Duration.between(Instant.now(), cached.expiresAt());
+					if (untilExpiry.isNegative()) {
+						return Duration.ZERO;
+					}
+					return untilExpiry.compareTo(MAX_CACHE_TTL) > 0 ? MAX_CACHE_TTL : untilExpiry;
+				}))
+				.build();
+		this.hitTimer = conversionTimer(meterRegistry, "hit");
+		this.missTimer = conversionTimer(meterRegistry, "miss");
+	}
+
 	/**
 	 * Converts the given {@link Jwt} into a collection of {@link GrantedAuthority}.
 	 *
@@ -38,12 +85,32 @@ public class KeycloakJwtGrantedAuthoritiesConverter implements Converter<Jwt, Co
 	 * converts them into Spring Security authorities. Each role is prefixed with "ROLE_" and converted to uppercase
 	 * to align with standard Spring Security conventions.
 	 *
+	 * <p>The result is memoized per token until the token expires, so repeated requests carrying the
+	 * same bearer token skip claim parsing entirely. Entries are keyed by {@link JwtCacheKeys}, which
+	 * identifies a token without keeping the token itself in memory.
+	 *
 	 * @param jwt the JWT containing the role claims issued by Keycloak
 	 * @return a collection of {@link GrantedAuthority} derived from the JWT's realm and client roles
 	 */
 
 	@Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
+        long start = System.nanoTime();
+        String key = JwtCacheKeys.of(jwt);
+        CachedAuthorities cached = authoritiesByToken.getIfPresent(key);
+        if (cached != null) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached.authorities();
+        }
+
+        List<GrantedAuthority> authorities = extractAuthorities(jwt);
+        Instant expiresAt = jwt.getExpiresAt() != null ? jwt.getExpiresAt() : Instant.now().plus(MAX_CACHE_TTL);
+        authoritiesByToken.put(key, new CachedAuthorities(authorities, expiresAt));
+        missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return authorities;
+    }
+
+	private List<GrantedAuthority> extractAuthorities(Jwt jwt) {
         List<GrantedAuthority> authorities = new ArrayList<>();
         
         // Extract realm roles
@@ -51,9 +118,7 @@ public class KeycloakJwtGrantedAuthoritiesConverter implements Converter<Jwt, Co
         if (realmAccess != null && realmAccess.containsKey("roles")) {
             @SuppressWarnings("unchecked")
             List<String> realmRoles = (List<String>) realmAccess.get("roles");
-            authorities.addAll(realmRoles.stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                .collect(Collectors.toList()));
+            realmRoles.forEach(role -> authorities.add(toAuthority(role)));
         }
         
         // Extract resource access roles
@@ -66,14 +131,27 @@ public class KeycloakJwtGrantedAuthoritiesConverter implements Converter<Jwt, Co
                     if (clientAccessMap.containsKey("roles")) {
                         @SuppressWarnings("unchecked")
                         List<String> clientRoles = (List<String>) clientAccessMap.get("roles");
-                        authorities.addAll(clientRoles.stream()
-                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                            .collect(Collectors.toList()));
+                        clientRoles.forEach(role -> authorities.add(toAuthority(role)));
                     }
                 }
             });
         }
         
-        return authorities;
+        return Collections.unmodifiableList(authorities);
     }
+
+	private static Timer conversionTimer(MeterRegistry meterRegistry, String cache) {
+		return Timer.builder("security.jwt.authorities")
+				.description("Conversion of token roles to granted authorities")
+				.tag("cache", cache)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private GrantedAuthority toAuthority(String role) {
+		return internedAuthorities.get(role, r -> new SimpleGrantedAuthority("ROLE_" + r.toUpperCase()));
+	}
+
+	private record CachedAuthorities(List<GrantedAuthority> authorities, Instant expiresAt) {
+	}
 }
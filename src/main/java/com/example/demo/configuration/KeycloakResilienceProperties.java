@@ -0,0 +1,69 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "keycloak.admin.resilience")
+public class KeycloakResilienceProperties {
+
+    /** Number of most recent admin API calls the circuit breaker computes its failure rate over. */
+    private int slidingWindowSize = 20;
+    /** Calls needed in the window before the failure rate can open the circuit. */
+    private int minimumCalls = 10;
+    /** Failure rate, in percent, at which the circuit opens. */
+    private int failureRateThreshold = 50;
+    /** How long an open circuit rejects calls before letting trial calls through. */
+    private Duration openDuration = Duration.ofSeconds(30);
+    /** Trial calls that must all succeed in the half-open state to close the circuit again. */
+    private int halfOpenCalls = 3;
+    /** How long the last successful result of a read may be served while Keycloak is unavailable. */
+    private Duration staleMaxAge = Duration.ofHours(1);
+    /** Maximum number of distinct reads whose last successful result is kept for stale serving. */
+    private long staleMaxEntries = 100;
+	public int getSlidingWindowSize() {
+		return slidingWindowSize;
+	}
+	public void setSlidingWindowSize(int slidingWindowSize) {
+		this.slidingWindowSize = slidingWindowSize;
+	}
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+	public void setMinimumCalls(int minimumCalls) {
+		this.minimumCalls = minimumCalls;
+	}
+	public int getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+	public void setFailureRateThreshold(int failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+	public Duration getOpenDuration() {
+		return openDuration;
+	}
+	public void setOpenDuration(Duration openDuration) {
+		this.openDuration = openDuration;
+	}
+	public int getHalfOpenCalls() {
+		return halfOpenCalls;
+	}
+	public void setHalfOpenCalls(int halfOpenCalls) {
+		this.halfOpenCalls = halfOpenCalls;
+	}
+	public Duration getStaleMaxAge() {
+		return staleMaxAge;
+	}
+	public void setStaleMaxAge(Duration staleMaxAge) {
+		this.staleMaxAge = staleMaxAge;
+	}
+	public long getStaleMaxEntries() {
+		return staleMaxEntries;
+	}
+	public void setStaleMaxEntries(long staleMaxEntries) {
+		this.staleMaxEntries = staleMaxEntries;
+	}
+
+}
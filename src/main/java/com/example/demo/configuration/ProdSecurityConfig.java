@@ -12,6 +12,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Production-grade Spring Security configuration tailored for stateless, token-based authentication 
  * in a microservices or SPA (Single Page Application) architecture.
@@ -45,9 +47,11 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class ProdSecurityConfig {
 	
 	private final CorsProperties corsProperties;
+	private final MeterRegistry meterRegistry;
 
-    public ProdSecurityConfig(CorsProperties corsProperties) {
+    public ProdSecurityConfig(CorsProperties corsProperties, MeterRegistry meterRegistry) {
         this.corsProperties = corsProperties;
+        this.meterRegistry = meterRegistry;
     }
     
 
@@ -146,6 +150,7 @@ public class ProdSecurityConfig {
         configuration.setAllowedOrigins(corsProperties.getAllowedOrigins());
         configuration.setAllowedMethods(corsProperties.getAllowedMethods());
         configuration.setAllowedHeaders(corsProperties.getAllowedHeaders());
+        configuration.setExposedHeaders(corsProperties.getExposedHeaders());
         configuration.setAllowCredentials(corsProperties.isAllowCredentials());
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -166,7 +171,7 @@ public class ProdSecurityConfig {
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(new KeycloakJwtGrantedAuthoritiesConverter());
+        converter.setJwtGrantedAuthoritiesConverter(new KeycloakJwtGrantedAuthoritiesConverter(meterRegistry));
         return converter;
     }
 }
@@ -0,0 +1,77 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "realm-mirror")
+public class RealmMirrorProperties {
+
+    /** Keeps a local replica of the realm's users and serves user listings from it. */
+    private boolean enabled = true;
+    /** How often Keycloak admin events are polled and applied to the replica. */
+    private Duration pollInterval = Duration.ofSeconds(5);
+    /** How often the replica is rebuilt from a full listing, catching changes admin events miss. */
+    private Duration fullSyncInterval = Duration.ofMinutes(15);
+    /** Users requested per listing call during a full sync. */
+    private int pageSize = 100;
+    /** Admin events requested per call while polling. */
+    private int eventPageSize = 100;
+    /** More new admin events than this in one poll trigger a full sync instead of per-user updates. */
+    private int maxEventsPerPoll = 1000;
+    /** File the replica is persisted to and restored from on startup; empty to keep it in memory only. */
+    private String snapshotFile = "";
+    /** How often a changed replica is written to the snapshot file. */
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+	public boolean isEnabled() {
+		return enabled;
+	}
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	public Duration getPollInterval() {
+		return pollInterval;
+	}
+	public void setPollInterval(Duration pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+	public Duration getFullSyncInterval() {
+		return fullSyncInterval;
+	}
+	public void setFullSyncInterval(Duration fullSyncInterval) {
+		this.fullSyncInterval = fullSyncInterval;
+	}
+	public int getPageSize() {
+		return pageSize;
+	}
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+	public int getEventPageSize() {
+		return eventPageSize;
+	}
+	public void setEventPageSize(int eventPageSize) {
+		this.eventPageSize = eventPageSize;
+	}
+	public int getMaxEventsPerPoll() {
+		return maxEventsPerPoll;
+	}
+	public void setMaxEventsPerPoll(int maxEventsPerPoll) {
+		this.maxEventsPerPoll = maxEventsPerPoll;
+	}
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+	public void setSnapshotFile(String snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+	public Duration getSnapshotInterval() {
+		return snapshotInterval;
+	}
+	public void setSnapshotInterval(Duration snapshotInterval) {
+		this.snapshotInterval = snapshotInterval;
+	}
+
+}
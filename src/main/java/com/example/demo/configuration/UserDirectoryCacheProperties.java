@@ -0,0 +1,37 @@
+package com.example.demo.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "user-directory.cache")
+public class UserDirectoryCacheProperties {
+
+    /** Maximum number of cached views (the full directory plus individual pages). */
+    private long maxEntries = 100;
+    /** How long a view may be served before it must be reloaded from Keycloak. */
+    private Duration ttl = Duration.ofMinutes(5);
+    /** Age after which a view is reloaded in the background while the old value keeps being served. */
+    private Duration refreshAfter = Duration.ofMinutes(1);
+	public long getMaxEntries() {
+		return maxEntries;
+	}
+	public void setMaxEntries(long maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+	public Duration getTtl() {
+		return ttl;
+	}
+	public void setTtl(Duration ttl) {
+		this.ttl = ttl;
+	}
+	public Duration getRefreshAfter() {
+		return refreshAfter;
+	}
+	public void setRefreshAfter(Duration refreshAfter) {
+		this.refreshAfter = refreshAfter;
+	}
+
+}
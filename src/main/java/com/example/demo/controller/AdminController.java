@@ -1,7 +1,12 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,11 +15,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.bean.AdminResponse;
+import com.example.demo.bean.BulkUserResult;
 import com.example.demo.bean.CreateUserRequest;
 import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.JsonWriters;
+import com.example.demo.service.BulkUserProvisioner;
 import com.example.demo.service.KeycloakAdminService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
 *
@@ -26,24 +41,64 @@ import com.example.demo.service.KeycloakAdminService;
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final KeycloakAdminService keycloakAdminService;
+    private final BulkUserProvisioner bulkUserProvisioner;
+    private final ObjectMapper objectMapper;
+    private final JsonWriters jsonWriters;
 
-    public AdminController(KeycloakAdminService keycloakAdminService) {
+    public AdminController(KeycloakAdminService keycloakAdminService, BulkUserProvisioner bulkUserProvisioner,
+            ObjectMapper objectMapper, JsonWriters jsonWriters) {
         this.keycloakAdminService = keycloakAdminService;
+        this.bulkUserProvisioner = bulkUserProvisioner;
+        this.objectMapper = objectMapper;
+        this.jsonWriters = jsonWriters;
     }
     
     @PostMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public AdminResponse createUser(@RequestBody CreateUserRequest request) {
-        keycloakAdminService.createUser(request);
-        return new AdminResponse("User created successfully", System.currentTimeMillis());
+    public CompletableFuture<AdminResponse> createUser(@RequestBody CreateUserRequest request) {
+        return keycloakAdminService.createUserAsync(request)
+                .thenApply(created -> new AdminResponse("User created successfully", System.currentTimeMillis()));
+    }
+
+    /**
+     * Creates many users from a JSON array or an NDJSON stream of {@link CreateUserRequest}s.
+     *
+     * <p>Items are read and created incrementally. The response is an NDJSON stream with one
+     * {@link BulkUserResult} per item, written as each item finishes, so a failing user or a malformed
+     * item does not abort the batch.
+     */
+    @PostMapping(value = "/users/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, NDJSON }, produces = NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public StreamingResponseBody createUsers(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        return out -> {
+            ObjectWriter writer = jsonWriters.writerFor(BulkUserResult.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try (MappingIterator<CreateUserRequest> requests =
+                    objectMapper.readerFor(CreateUserRequest.class).readValues(body)) {
+                bulkUserProvisioner.provision(requests, result -> {
+                    try {
+                        writer.writeValue(out, result);
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
     }
 
     @DeleteMapping("/users/{username}")
     @PreAuthorize("hasRole('ADMIN')")
-    public AdminResponse deleteUser(@PathVariable String username) {
-        keycloakAdminService.deleteUser(username);
-        return new AdminResponse("User deleted successfully", System.currentTimeMillis());
+    public CompletableFuture<AdminResponse> deleteUser(@PathVariable String username) {
+        return keycloakAdminService.deleteUserAsync(username)
+                .thenApply(deleted -> new AdminResponse("User deleted successfully", System.currentTimeMillis()));
     }
 }
 
@@ -0,0 +1,39 @@
+package com.example.demo.controller;
+
+/**
+ * {@code If-None-Match} handling for controllers that compute their own ETags.
+ *
+ * @author Amar Pattanshetti
+ */
+
+final class ETags {
+
+	private ETags() {
+	}
+
+	/**
+	 * Compares the request's {@code If-None-Match} header with an ETag using the weak comparison
+	 * that applies to GET requests.
+	 *
+	 * @param ifNoneMatch the header value, may be {@code null}
+	 * @param etag        the current ETag, quoted and optionally {@code W/} prefixed
+	 * @return {@code true} if the client already holds an equivalent representation
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String opaque = opaque(etag);
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.equals("*") || opaque(tag).equals(opaque)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String opaque(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+}
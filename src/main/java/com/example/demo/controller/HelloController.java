@@ -1,8 +1,21 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -11,15 +24,34 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.bean.AdminDashboard;
+import com.example.demo.bean.AdminDashboardDelta;
 import com.example.demo.bean.HelloResponse;
 import com.example.demo.bean.UserInfo;
+import com.example.demo.bean.UserPage;
 import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.JsonWriters;
+import com.example.demo.configuration.JwtCacheKeys;
 import com.example.demo.service.KeycloakAdminService;
+import com.example.demo.service.KeycloakExecution;
+import com.example.demo.service.RoleSetInterner;
+import com.example.demo.service.UserChangeLog;
+import com.example.demo.service.UserDirectoryCache;
+import com.example.demo.service.UserInfoCache;
+import com.example.demo.service.UserInfoCache.CachedUserInfo;
+import com.example.demo.service.UserSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
 *
@@ -31,10 +63,38 @@ import com.example.demo.service.KeycloakAdminService;
 @RequestMapping("/api")
 public class HelloController {
 	
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+	private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	private static final String DASHBOARD_TITLE = "Admin Dashboard";
+	private static final String DASHBOARD_DESCRIPTION = "Welcome to the admin panel";
+	/** Browsers may keep the profile but must revalidate it; shared caches must not store it. */
+	private static final CacheControl USER_INFO_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
 	private final KeycloakAdminService keycloakAdminService;
+	private final UserDirectoryCache userDirectoryCache;
+	private final UserInfoCache userInfoCache;
+	private final UserChangeLog userChangeLog;
+	private final RoleSetInterner roleSets;
+	private final KeycloakExecution execution;
+	private final JsonWriters jsonWriters;
+	private final PreEncodedHelloResponse publicHello;
+	private final CacheControl publicHelloCacheControl;
 
-    public HelloController(KeycloakAdminService keycloakAdminService) {
+    public HelloController(KeycloakAdminService keycloakAdminService, UserDirectoryCache userDirectoryCache,
+            UserInfoCache userInfoCache, UserChangeLog userChangeLog, RoleSetInterner roleSets, KeycloakExecution execution,
+            JsonWriters jsonWriters,
+            @Value("${api.public-hello.max-age:PT5S}") Duration publicHelloMaxAge) {
         this.keycloakAdminService = keycloakAdminService;
+        this.userDirectoryCache = userDirectoryCache;
+        this.userInfoCache = userInfoCache;
+        this.userChangeLog = userChangeLog;
+        this.roleSets = roleSets;
+        this.execution = execution;
+        this.jsonWriters = jsonWriters;
+        this.publicHello = new PreEncodedHelloResponse(jsonWriters.writerFor(HelloResponse.class), "Hello Public world");
+        this.publicHelloCacheControl = CacheControl.maxAge(publicHelloMaxAge).cachePublic();
     }
 
     @GetMapping("/hello")
@@ -62,10 +122,232 @@ public class HelloController {
         return new HelloResponse("Hello, " + username + "! (via " + provider + ")", System.currentTimeMillis());
     }
     
+    /**
+     * Returns the caller's profile. The serialized payload is cached per token or login session
+     * until the credentials expire, and a matching {@code If-None-Match} gets a 304.
+     */
     @GetMapping("/user-info")
-    public UserInfo getUserInfo() {
+    public ResponseEntity<byte[]> getUserInfo(HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CachedUserInfo userInfo;
+        if (authentication instanceof JwtAuthenticationToken jwtAuth) {
+            Jwt jwt = jwtAuth.getToken();
+            userInfo = userInfoCache.get("jwt:" + JwtCacheKeys.of(jwt), jwt.getExpiresAt(), () -> buildUserInfo(authentication));
+        } else if (authentication instanceof OAuth2AuthenticationToken oauth2Token
+                && request.getSession(false) != null) {
+            String key = "session:" + request.getSession(false).getId()
+                    + ":" + oauth2Token.getAuthorizedClientRegistrationId() + ":" + oauth2Token.getName();
+            userInfo = userInfoCache.get(key, null, () -> buildUserInfo(authentication));
+        } else {
+            userInfo = userInfoCache.serialize(buildUserInfo(authentication), null);
+        }
+
+        if (ETags.matches(ifNoneMatch, userInfo.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(userInfo.etag())
+                    .cacheControl(USER_INFO_CACHE_CONTROL)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(userInfo.etag())
+                .cacheControl(USER_INFO_CACHE_CONTROL)
+                .body(userInfo.body());
+    }
+
+    /**
+     * Load balancer and uptime probe target. Served from pre-encoded bytes and cacheable by shared
+     * caches for {@code api.public-hello.max-age}; a matching {@code If-None-Match} gets a 304.
+     */
+    @GetMapping("/public/hello")
+    public ResponseEntity<byte[]> getPublicHello(@RequestParam(defaultValue = "default") String param,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (publicHello.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(publicHello.etag())
+                    .cacheControl(publicHelloCacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(publicHello.etag())
+                .cacheControl(publicHelloCacheControl)
+                .body(publicHello.render(System.currentTimeMillis()));
+    }
+
+    // Admin-only endpoints
+    @GetMapping("/admin/dashboard")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CompletableFuture<AdminDashboard> getAdminDashboard() {
+        return execution.handle(() -> {
+            // Taken before reading the users, so a change racing with this request shows up in the next delta
+            String cursor = Long.toString(userChangeLog.mark());
+            return new AdminDashboard(
+                DASHBOARD_TITLE,
+                DASHBOARD_DESCRIPTION,
+                System.currentTimeMillis(),
+                cursor,
+                userDirectoryCache.getAllUsers()
+            );
+        });
+    }
+
+    /**
+     * Returns the users added, changed or removed since the {@code cursor} of a previous dashboard
+     * or delta response, or the full list flagged {@code full} when the change log no longer reaches
+     * back that far or did not issue that {@code cursor}, e.g. before a restart.
+     */
+    @GetMapping(value = "/admin/dashboard", params = "since")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CompletableFuture<AdminDashboardDelta> getAdminDashboardChanges(@RequestParam String since) {
+        return execution.handle(() -> {
+            String cursor = Long.toString(userChangeLog.mark());
+            long timestamp = System.currentTimeMillis();
+            Map<String, UserSummary> changes = changesSince(since);
+            if (changes == null) {
+                return new AdminDashboardDelta(DASHBOARD_TITLE, DASHBOARD_DESCRIPTION, since, cursor, timestamp,
+                        true, userDirectoryCache.getAllUsers(), List.of());
+            }
+
+            List<UserSummary> users = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            changes.forEach((username, user) -> {
+                if (user != null) {
+                    users.add(user);
+                } else {
+                    removed.add(username);
+                }
+            });
+            return new AdminDashboardDelta(DASHBOARD_TITLE, DASHBOARD_DESCRIPTION, since, cursor, timestamp,
+                    false, users, removed);
+        });
+    }
+
+    private Map<String, UserSummary> changesSince(String cursor) {
+        try {
+            return userChangeLog.changesSince(Long.parseLong(cursor));
+        } catch (NumberFormatException e) {
+            // Not a cursor this application issued
+            return null;
+        }
+    }
+    
+    /**
+     * Lists users. Without parameters the whole directory is returned. With any of them, one page of
+     * the users matching all given criteria is returned, and the number of matches across all pages
+     * is sent in the {@code X-Total-Count} header.
+     *
+     * @param q    words that must each match the start of the username, the email or a word of the name
+     * @param role realm role the users must have
+     * @param sort {@code username} (default), {@code email} or {@code name}, prefixed with {@code -}
+     *             for descending order
+     * @param page zero-based page number
+     * @param size users per page, 50 by default
+     */
+    @GetMapping("admin/users")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CompletableFuture<ResponseEntity<List<UserSummary>>> getAllUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        if (q == null && role == null && sort == null && page == null && size == null) {
+            return execution.handle(() -> ResponseEntity.ok(userDirectoryCache.getAllUsers()));
+        }
 
+        int pageNumber = page != null ? page : 0;
+        int pageSize = size != null ? size : DEFAULT_SEARCH_PAGE_SIZE;
+        if (pageNumber < 0 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean descending = sort != null && sort.startsWith("-");
+        UserSearchIndex.Sort order;
+        try {
+            order = sort != null
+                    ? UserSearchIndex.Sort.valueOf(sort.substring(descending ? 1 : 0).toUpperCase(Locale.ROOT))
+                    : UserSearchIndex.Sort.USERNAME;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "sort must be username, email or name, optionally prefixed with -", e);
+        }
+
+        long first = (long) pageNumber * pageSize;
+        return execution.handle(() -> {
+            UserSearchIndex.Result result = userDirectoryCache.search(q, role, order, descending,
+                    (int) Math.min(first, Integer.MAX_VALUE), pageSize);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, Integer.toString(result.total()))
+                    .body(result.users());
+        });
+    }
+
+    @GetMapping("admin/users/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CompletableFuture<UserPage> getUserPage(
+            @RequestParam(defaultValue = "0") int first,
+            @RequestParam(defaultValue = "100") int max,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            try {
+                first = UserPage.decodeCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+            }
+        }
+        if (first < 0 || max < 1 || max > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "first must be >= 0 and max between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        int offset = first;
+        return execution.handle(() -> {
+            List<UserSummary> users = userDirectoryCache.getUsers(offset, max);
+            String nextCursor = users.size() == max ? UserPage.encodeCursor(offset + max) : null;
+            return new UserPage(offset, max, nextCursor, users);
+        });
+    }
+
+    /**
+     * Streams every user of the realm as newline-delimited JSON, writing each Keycloak page to the
+     * response as soon as it arrives so memory use and time-to-first-byte do not grow with the realm.
+     */
+    @GetMapping("admin/users/stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(
+            @RequestParam(defaultValue = "100") int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        StreamingResponseBody body = out -> {
+            // the container owns the stream; flush once per Keycloak page rather than per line
+            ObjectWriter writer = jsonWriters.writerFor(UserSummary.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try {
+                keycloakAdminService.streamUsers(pageSize, page -> {
+                    try {
+                        for (UserSummary user : page) {
+                            writer.writeValue(out, user);
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private UserInfo buildUserInfo(Authentication authentication) {
         if (authentication instanceof JwtAuthenticationToken jwtAuth) {
             Jwt jwt = jwtAuth.getToken();
             List<String> roles = authentication.getAuthorities().stream()
@@ -78,7 +360,7 @@ public class HelloController {
                 jwt.getClaimAsString("name"),
                 null,
                 "Keycloak",
-                roles
+                roleSets.intern(roles)
             );
         } else if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
             OAuth2User oauth2User = oauth2Token.getPrincipal();
@@ -93,36 +375,13 @@ public class HelloController {
                 oauth2User.getAttribute("name"),
                 oauth2User.getAttribute("picture"),
                 capitalize(provider),
-                roles
+                roleSets.intern(roles)
             );
         }
 
         return new UserInfo("Anonymous", null, null, null, "Unknown", List.of());
     }
 
-    @GetMapping("/public/hello")
-    public HelloResponse getPublicHello(@RequestParam(defaultValue = "default") String param) {
-        return new HelloResponse("Hello Public world", System.currentTimeMillis());
-    }
-
-    // Admin-only endpoints
-    @GetMapping("/admin/dashboard")
-    @PreAuthorize("hasRole('ADMIN')")
-    public AdminDashboard getAdminDashboard() {
-        return new AdminDashboard(
-            "Admin Dashboard",
-            "Welcome to the admin panel",
-            System.currentTimeMillis(),
-            getAllUsers()
-        );
-    }
-    
-    @GetMapping("admin/users")
-    @PreAuthorize("hasRole('ADMIN')")
-    public List<UserSummary> getAllUsers() {
-        return keycloakAdminService.getAllUsers();
-    }
-
     // Helper method
     private String capitalize(String str) {
         return (str == null || str.isEmpty()) ? str : str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
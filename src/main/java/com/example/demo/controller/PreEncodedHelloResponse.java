@@ -0,0 +1,81 @@
+package com.example.demo.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import com.example.demo.bean.HelloResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * A {@link HelloResponse} with a fixed message, serialized once to UTF-8.
+ *
+ * <p>The JSON is encoded by the application {@link ObjectMapper} up front and split around the
+ * timestamp, so rendering a response only copies the two fixed parts and writes the digits of the
+ * current time. The ETag is weak and derived from the fixed parts only: two responses that differ
+ * only in their timestamp are considered equivalent.
+ *
+ * @author Amar Pattanshetti
+ */
+
+final class PreEncodedHelloResponse {
+
+	private static final long TIMESTAMP_PLACEHOLDER = Long.MIN_VALUE;
+
+	private final byte[] prefix;
+	private final byte[] suffix;
+	private final String etag;
+
+	PreEncodedHelloResponse(ObjectWriter writer, String message) {
+		byte[] template;
+		try {
+			template = writer.writeValueAsBytes(new HelloResponse(message, TIMESTAMP_PLACEHOLDER));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize hello response", e);
+		}
+		String json = new String(template, StandardCharsets.UTF_8);
+		String placeholder = Long.toString(TIMESTAMP_PLACEHOLDER);
+		int at = json.lastIndexOf(placeholder);
+		this.prefix = json.substring(0, at).getBytes(StandardCharsets.UTF_8);
+		this.suffix = json.substring(at + placeholder.length()).getBytes(StandardCharsets.UTF_8);
+		this.etag = "W/\"" + hash(prefix, suffix) + "\"";
+	}
+
+	String etag() {
+		return etag;
+	}
+
+	/**
+	 * @param ifNoneMatch the {@code If-None-Match} request header, may be {@code null}
+	 * @return {@code true} if the client already holds an equivalent response
+	 */
+	boolean matches(String ifNoneMatch) {
+		return ETags.matches(ifNoneMatch, etag);
+	}
+
+	/**
+	 * @return the JSON body with the given timestamp patched in
+	 */
+	byte[] render(long timestamp) {
+		byte[] digits = Long.toString(timestamp).getBytes(StandardCharsets.US_ASCII);
+		byte[] body = Arrays.copyOf(prefix, prefix.length + digits.length + suffix.length);
+		System.arraycopy(digits, 0, body, prefix.length, digits.length);
+		System.arraycopy(suffix, 0, body, prefix.length + digits.length, suffix.length);
+		return body;
+	}
+
+	private static String hash(byte[] prefix, byte[] suffix) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(prefix);
+			digest.update(suffix);
+			return HexFormat.of().formatHex(digest.digest(), 0, 8);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
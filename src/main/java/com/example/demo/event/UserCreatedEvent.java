@@ -0,0 +1,28 @@
+package com.example.demo.event;
+
+import com.example.demo.bean.UserSummary;
+
+/**
+ * Published by {@link com.example.demo.service.KeycloakAdminService} after a user has been
+ * created in Keycloak, so that local views of the realm can be patched without a reload.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class UserCreatedEvent {
+	private final String userId;
+	private final UserSummary user;
+
+	public UserCreatedEvent(String userId, UserSummary user) {
+		this.userId = userId;
+		this.user = user;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public UserSummary getUser() {
+		return user;
+	}
+}
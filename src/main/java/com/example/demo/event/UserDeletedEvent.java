@@ -0,0 +1,26 @@
+package com.example.demo.event;
+
+/**
+ * Published by {@link com.example.demo.service.KeycloakAdminService} after a user has been
+ * removed from Keycloak, so that local views of the realm can drop it without a reload.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class UserDeletedEvent {
+	private final String userId;
+	private final String username;
+
+	public UserDeletedEvent(String userId, String username) {
+		this.userId = userId;
+		this.username = username;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+}
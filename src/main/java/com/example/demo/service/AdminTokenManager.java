@@ -0,0 +1,152 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.keycloak.representations.AccessTokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Holds the admin access token used by a {@link KeycloakAdminClient} and renews it before it expires.
+ *
+ * <p>{@link #refreshIfExpiring()} is called on a short schedule and starts a refresh once the token
+ * is within {@code refreshAhead} of its expiry, while callers keep using the still valid token. The
+ * token is read without locking and the new one is fetched outside the lock, then swapped in, so a
+ * refresh never holds up a caller that has a valid token, even when the fetch itself blocks. Only
+ * when no valid token is held at all do callers wait, and then they all share one in-flight request.
+ * Refreshes are timed as {@code keycloak.admin.token.refresh}, tagged with the trigger
+ * ({@code proactive} or {@code on-demand}) and the outcome.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class AdminTokenManager {
+
+	private static final Logger log = LoggerFactory.getLogger(AdminTokenManager.class);
+
+	/** A token is no longer handed out when it expires within this margin. */
+	static final Duration EXPIRY_MARGIN = Duration.ofSeconds(5);
+
+	private final Supplier<CompletableFuture<AdminToken>> fetcher;
+	private final Duration refreshAhead;
+	private final RefreshTimers proactiveTimers;
+	private final RefreshTimers onDemandTimers;
+
+	private volatile AdminToken current;
+	private CompletableFuture<AdminToken> inFlight;
+
+	/**
+	 * @param fetcher      obtains a new token from Keycloak
+	 * @param refreshAhead how long before expiry a proactive refresh starts
+	 */
+	public AdminTokenManager(Supplier<CompletableFuture<AdminToken>> fetcher, Duration refreshAhead,
+			MeterRegistry meterRegistry) {
+		this.fetcher = fetcher;
+		this.refreshAhead = refreshAhead;
+		this.proactiveTimers = RefreshTimers.register(meterRegistry, "proactive");
+		this.onDemandTimers = RefreshTimers.register(meterRegistry, "on-demand");
+	}
+
+	/**
+	 * @return a valid access token, immediately when one is held
+	 */
+	public CompletableFuture<String> accessToken() {
+		AdminToken token = current;
+		if (token != null && token.isValidFor(EXPIRY_MARGIN)) {
+			return CompletableFuture.completedFuture(token.value());
+		}
+		return refresh(onDemandTimers).thenApply(AdminToken::value);
+	}
+
+	/**
+	 * Starts a refresh when the token is missing or about to expire. Does nothing while a refresh is
+	 * already in flight.
+	 */
+	public void refreshIfExpiring() {
+		AdminToken token = current;
+		if (token == null || !token.isValidFor(refreshAhead)) {
+			synchronized (this) {
+				if (inFlight != null) {
+					return;
+				}
+			}
+			refresh(proactiveTimers).exceptionally(e -> {
+				log.warn("Proactive Keycloak admin token refresh failed: {}", e.getMessage());
+				return null;
+			});
+		}
+	}
+
+	private CompletableFuture<AdminToken> refresh(RefreshTimers timers) {
+		CompletableFuture<AdminToken> refresh;
+		synchronized (this) {
+			if (inFlight != null) {
+				return inFlight;
+			}
+			refresh = new CompletableFuture<>();
+			inFlight = refresh;
+		}
+
+		// The fetch may block, e.g. with the RESTEasy client, so it runs without holding the lock
+		long start = System.nanoTime();
+		CompletableFuture<AdminToken> fetch;
+		try {
+			fetch = fetcher.get();
+		} catch (RuntimeException e) {
+			fetch = CompletableFuture.failedFuture(e);
+		}
+		fetch.whenComplete((token, failure) -> {
+			if (failure == null) {
+				current = token;
+			}
+			synchronized (this) {
+				inFlight = null;
+			}
+			(failure == null ? timers.success() : timers.error()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (failure == null) {
+				refresh.complete(token);
+			} else {
+				refresh.completeExceptionally(failure);
+			}
+		});
+		return refresh;
+	}
+
+	/** Refresh timers of one trigger, registered once rather than looked up on every refresh. */
+	private record RefreshTimers(Timer success, Timer error) {
+
+		static RefreshTimers register(MeterRegistry meterRegistry, String trigger) {
+			return new RefreshTimers(timer(meterRegistry, trigger, "success"), timer(meterRegistry, trigger, "error"));
+		}
+
+		private static Timer timer(MeterRegistry meterRegistry, String trigger, String outcome) {
+			return Timer.builder("keycloak.admin.token.refresh")
+					.description("Keycloak admin access token refreshes")
+					.tag("trigger", trigger)
+					.tag("outcome", outcome)
+					.publishPercentileHistogram()
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * An access token together with the instant it expires.
+	 */
+	public record AdminToken(String value, Instant expiresAt) {
+
+		public static AdminToken of(AccessTokenResponse response) {
+			return new AdminToken(response.getToken(), Instant.now().plusSeconds(response.getExpiresIn()));
+		}
+
+		boolean isValidFor(Duration duration) {
+			return Instant.now().plus(duration).isBefore(expiresAt);
+		}
+	}
+}
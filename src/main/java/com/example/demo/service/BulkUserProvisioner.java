@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.bean.BulkUserResult;
+import com.example.demo.bean.CreateUserRequest;
+
+/**
+ * Creates many users in one go.
+ *
+ * <p>Users are read one by one from the incoming iterator and created concurrently, with at most
+ * {@code keycloak.admin.bulk.parallelism} creations in flight. Realm roles are resolved from the
+ * cached role catalog, so each user costs only its create and role-mapping calls. Every item
+ * produces a {@link BulkUserResult}, handed to the result consumer as soon as that item finishes, so
+ * one failing user does not abort the rest of the batch. An item that cannot be read, such as one
+ * with a wrong field type or a {@code null}, fails on its own as well; only when the input itself is
+ * unreadable does reading stop, after reporting a failed result.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Service
+public class BulkUserProvisioner {
+
+	private final KeycloakAdminService keycloakAdminService;
+	private final int parallelism;
+
+	public BulkUserProvisioner(KeycloakAdminService keycloakAdminService,
+			@Value("${keycloak.admin.bulk.parallelism:8}") int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("keycloak.admin.bulk.parallelism must be positive: " + parallelism);
+		}
+		this.keycloakAdminService = keycloakAdminService;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Creates every user produced by {@code requests}. Returns, or rethrows a failure of
+	 * {@code results}, only once every creation it started has reported back.
+	 *
+	 * @param requests the users to create, consumed incrementally
+	 * @param results  receives one result per item in completion order; calls are serialized
+	 */
+	public void provision(Iterator<CreateUserRequest> requests, Consumer<BulkUserResult> results) {
+		Semaphore inFlight = new Semaphore(parallelism);
+		AtomicReference<RuntimeException> resultFailure = new AtomicReference<>();
+		Consumer<BulkUserResult> serializedResults = result -> {
+			synchronized (results) {
+				try {
+					results.accept(result);
+				} catch (RuntimeException e) {
+					resultFailure.compareAndSet(null, e);
+				}
+			}
+		};
+
+		int index = 0;
+		try {
+			// Stop reading new items once results can no longer be delivered, e.g. the client went away
+			while (resultFailure.get() == null) {
+				try {
+					if (!requests.hasNext()) {
+						break;
+					}
+				} catch (RuntimeException e) {
+					// The input cannot be read any further, e.g. broken JSON syntax
+					serializedResults.accept(new BulkUserResult(index, null, false, e.getMessage()));
+					break;
+				}
+				int itemIndex = index++;
+				CreateUserRequest request;
+				try {
+					request = requests.next();
+				} catch (RuntimeException e) {
+					// A malformed item fails on its own; the reader skips to the next one
+					serializedResults.accept(new BulkUserResult(itemIndex, null, false, e.getMessage()));
+					continue;
+				}
+				if (request == null) {
+					serializedResults.accept(new BulkUserResult(itemIndex, null, false, "Item must not be null"));
+					continue;
+				}
+
+				inFlight.acquireUninterruptibly();
+				create(itemIndex, request).thenAccept(result -> {
+					try {
+						serializedResults.accept(result);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+		} finally {
+			// Wait for the remaining creations to report back, also when reading failed
+			inFlight.acquireUninterruptibly(parallelism);
+		}
+		if (resultFailure.get() != null) {
+			throw resultFailure.get();
+		}
+	}
+
+	private CompletableFuture<BulkUserResult> create(int index, CreateUserRequest request) {
+		CompletableFuture<Void> creation;
+		try {
+			creation = keycloakAdminService.createUserAsync(request);
+		} catch (RuntimeException e) {
+			creation = CompletableFuture.failedFuture(e);
+		}
+		return creation.handle((created, failure) -> failure == null
+				? new BulkUserResult(index, request.getUsername(), true, "User created successfully")
+				: new BulkUserResult(index, request.getUsername(), false, KeycloakExecution.unwrap(failure).getMessage()));
+	}
+}
@@ -0,0 +1,244 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.keycloak.representations.AccessTokenResponse;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakAdminPoolProperties;
+import com.example.demo.service.AdminTokenManager.AdminToken;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Non-blocking {@link KeycloakAdminClient} on top of {@link HttpClient}.
+ *
+ * <p>Requests are sent with {@code sendAsync} over HTTP/2 (falling back to HTTP/1.1 keep-alive when
+ * Keycloak does not offer it), so an admin call in flight does not occupy a thread. The admin access
+ * token is obtained with the {@code admin-cli} password grant against the master realm and renewed
+ * ahead of expiry by an {@link AdminTokenManager}. Calls still count against the {@link KeycloakCallGuard} limit. The connect and read
+ * timeouts are taken from {@code keycloak.admin.pool.*}; connection reuse is managed by the JDK client.
+ *
+ * <p>Enabled with {@code keycloak.admin.client=http}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+@ConditionalOnProperty(name = "keycloak.admin.client", havingValue = "http")
+public class HttpKeycloakAdminClient implements KeycloakAdminClient {
+
+	private static final TypeReference<UserRepresentation> USER = new TypeReference<>() {
+	};
+	private static final TypeReference<List<UserRepresentation>> USER_LIST = new TypeReference<>() {
+	};
+	private static final TypeReference<List<RoleRepresentation>> ROLE_LIST = new TypeReference<>() {
+	};
+	private static final TypeReference<List<AdminEventRepresentation>> ADMIN_EVENT_LIST = new TypeReference<>() {
+	};
+
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final KeycloakCallGuard callGuard;
+	private final URI tokenUri;
+	private final String realmUrl;
+	private final String username;
+	private final String password;
+	private final Duration requestTimeout;
+	private final AdminTokenManager tokenManager;
+
+	public HttpKeycloakAdminClient(
+			@Value("${keycloak.server-url}") String serverUrl,
+			@Value("${keycloak.realm}") String realm,
+			@Value("${keycloak.admin.username}") String username,
+			@Value("${keycloak.admin.password}") String password,
+			@Value("${keycloak.admin.token.refresh-ahead:PT20S}") Duration tokenRefreshAhead,
+			KeycloakAdminPoolProperties poolProperties,
+			ObjectMapper objectMapper,
+			KeycloakCallGuard callGuard,
+			MeterRegistry meterRegistry) {
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(poolProperties.getConnectTimeout())
+				.build();
+		this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		this.callGuard = callGuard;
+		this.tokenUri = URI.create(serverUrl + "/realms/master/protocol/openid-connect/token");
+		this.realmUrl = serverUrl + "/admin/realms/" + encode(realm);
+		this.username = username;
+		this.password = password;
+		this.requestTimeout = poolProperties.getReadTimeout();
+		this.tokenManager = new AdminTokenManager(this::fetchToken, tokenRefreshAhead, meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${keycloak.admin.token.check-interval:PT5S}")
+	public void refreshAdminToken() {
+		tokenManager.refreshIfExpiring();
+	}
+
+	@Override
+	public CompletableFuture<List<UserRepresentation>> listUsers(int first, int max) {
+		return send("users.list", get("/users?first=" + first + "&max=" + max))
+				.thenApply(body -> read(body, USER_LIST));
+	}
+
+	@Override
+	public CompletableFuture<UserRepresentation> getUser(String userId) {
+		return send("users.get", get("/users/" + encode(userId)))
+				.thenApply(body -> read(body, USER));
+	}
+
+	@Override
+	public CompletableFuture<List<UserRepresentation>> searchUsersByUsername(String username) {
+		return send("users.search", get("/users?exact=true&username=" + encode(username)))
+				.thenApply(body -> read(body, USER_LIST));
+	}
+
+	@Override
+	public CompletableFuture<String> createUser(UserRepresentation user) {
+		return sendForResponse("users.create", json("POST", "/users", user))
+				.thenApply(response -> {
+					if (response.statusCode() != 201) {
+						throw new WebApplicationException("User creation failed: " + response.body(), response.statusCode());
+					}
+					String location = response.headers().firstValue("Location")
+							.orElseThrow(() -> new RuntimeException("User creation failed: no Location header"));
+					return location.substring(location.lastIndexOf('/') + 1);
+				});
+	}
+
+	@Override
+	public CompletableFuture<List<RoleRepresentation>> listRealmRoles() {
+		return send("roles.list", get("/roles"))
+				.thenApply(body -> read(body, ROLE_LIST));
+	}
+
+	@Override
+	public CompletableFuture<List<UserRepresentation>> listRealmRoleMembers(String roleName, int first, int max) {
+		return send("roles.members", get("/roles/" + encode(roleName) + "/users?first=" + first + "&max=" + max))
+				.thenApply(body -> read(body, USER_LIST));
+	}
+
+	@Override
+	public CompletableFuture<List<RoleRepresentation>> listUserRealmRoleMappings(String userId) {
+		return send("users.roles.list", get("/users/" + encode(userId) + "/role-mappings/realm"))
+				.thenApply(body -> read(body, ROLE_LIST));
+	}
+
+	@Override
+	public CompletableFuture<Void> addRealmRoleMappings(String userId, List<RoleRepresentation> roles) {
+		return send("users.roles.add", json("POST", "/users/" + encode(userId) + "/role-mappings/realm", roles))
+				.thenApply(body -> null);
+	}
+
+	@Override
+	public CompletableFuture<Void> removeUser(String userId) {
+		return send("users.remove", path("/users/" + encode(userId)).DELETE())
+				.thenApply(body -> null);
+	}
+
+	@Override
+	public CompletableFuture<List<AdminEventRepresentation>> listAdminEvents(String dateFrom, int first, int max) {
+		return send("events.admin", get("/admin-events?dateFrom=" + encode(dateFrom) + "&first=" + first + "&max=" + max))
+				.thenApply(body -> read(body, ADMIN_EVENT_LIST));
+	}
+
+	private CompletableFuture<String> send(String operation, HttpRequest.Builder request) {
+		return sendForResponse(operation, request).thenApply(HttpResponse::body);
+	}
+
+	/**
+	 * Sends an authorized request. Error statuses fail the future inside the call guard, so that the
+	 * circuit breaker sees 5xx responses as failures.
+	 */
+	private CompletableFuture<HttpResponse<String>> sendForResponse(String operation, HttpRequest.Builder request) {
+		return tokenManager.accessToken().thenCompose(accessToken -> callGuard.callAsync(operation, () -> httpClient.sendAsync(
+				request.header("Authorization", "Bearer " + accessToken).build(),
+				HttpResponse.BodyHandlers.ofString())
+				.thenApply(response -> checkStatus(operation, response))));
+	}
+
+	private static HttpResponse<String> checkStatus(String operation, HttpResponse<String> response) {
+		int status = response.statusCode();
+		if (status == 404) {
+			throw new NotFoundException(response.body());
+		}
+		if (status / 100 != 2) {
+			throw new WebApplicationException(
+					"Keycloak " + operation + " failed with status " + status + ": " + response.body(), status);
+		}
+		return response;
+	}
+
+	private CompletableFuture<AdminToken> fetchToken() {
+		String form = "grant_type=password&client_id=admin-cli"
+				+ "&username=" + encode(username)
+				+ "&password=" + encode(password);
+		HttpRequest request = HttpRequest.newBuilder(tokenUri)
+				.timeout(requestTimeout)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(form))
+				.build();
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.thenApply(response -> {
+					if (response.statusCode() != 200) {
+						throw new RuntimeException("Keycloak admin login failed with status " + response.statusCode());
+					}
+					return AdminToken.of(read(response.body(), new TypeReference<AccessTokenResponse>() {
+					}));
+				});
+	}
+
+	private HttpRequest.Builder get(String path) {
+		return path(path).GET();
+	}
+
+	private HttpRequest.Builder json(String method, String path, Object body) {
+		try {
+			return path(path)
+					.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private HttpRequest.Builder path(String path) {
+		return HttpRequest.newBuilder(URI.create(realmUrl + path))
+				.timeout(requestTimeout)
+				.header("Accept", "application/json");
+	}
+
+	private <T> T read(String body, TypeReference<T> type) {
+		try {
+			return objectMapper.readValue(body, type);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+}
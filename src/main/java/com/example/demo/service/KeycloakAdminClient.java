@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+/**
+ * The Keycloak admin REST operations used by {@link KeycloakAdminService}, scoped to the configured realm.
+ *
+ * <p>Every operation returns a {@link CompletableFuture} so callers can fan out several requests
+ * concurrently. Two implementations exist, selected with {@code keycloak.admin.client}:
+ * <ul>
+ *     <li>{@code resteasy} (default): the blocking {@code keycloak-admin-client}, run on the
+ *     {@link KeycloakExecution} threads</li>
+ *     <li>{@code http}: a non-blocking client built on {@code java.net.http.HttpClient} with HTTP/2
+ *     and keep-alive, which does not hold a thread per call</li>
+ * </ul>
+ *
+ * <p>Operations that target a missing user fail with {@link jakarta.ws.rs.NotFoundException}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public interface KeycloakAdminClient {
+
+	CompletableFuture<List<UserRepresentation>> listUsers(int first, int max);
+
+	CompletableFuture<UserRepresentation> getUser(String userId);
+
+	/**
+	 * Searches users whose username matches {@code username} exactly.
+	 */
+	CompletableFuture<List<UserRepresentation>> searchUsersByUsername(String username);
+
+	/**
+	 * Creates a user.
+	 *
+	 * @return the id of the created user
+	 */
+	CompletableFuture<String> createUser(UserRepresentation user);
+
+	CompletableFuture<List<RoleRepresentation>> listRealmRoles();
+
+	CompletableFuture<List<UserRepresentation>> listRealmRoleMembers(String roleName, int first, int max);
+
+	/**
+	 * Lists the realm roles mapped directly to a user.
+	 */
+	CompletableFuture<List<RoleRepresentation>> listUserRealmRoleMappings(String userId);
+
+	CompletableFuture<Void> addRealmRoleMappings(String userId, List<RoleRepresentation> roles);
+
+	CompletableFuture<Void> removeUser(String userId);
+
+	/**
+	 * Lists the admin events of the realm, newest first. Keycloak only records them when admin events
+	 * are enabled for the realm.
+	 *
+	 * @param dateFrom earliest day to include as {@code yyyy-MM-dd}, the granularity Keycloak filters by
+	 */
+	CompletableFuture<List<AdminEventRepresentation>> listAdminEvents(String dateFrom, int first, int max);
+}
@@ -1,25 +1,41 @@
 package com.example.demo.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import org.keycloak.admin.client.CreatedResponseUtil;
-import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
-import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.bean.CreateUserRequest;
 import com.example.demo.bean.UserSummary;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
 
 import jakarta.ws.rs.NotFoundException;
-import jakarta.ws.rs.core.Response; // ✅ correct for Spring Boot 3
 
 /**
+ * User and role administration on top of the Keycloak admin API.
+ *
+ * <p>User listings are read through a {@link KeycloakReadCoalescer}: identical concurrent listings share
+ * one set of Keycloak calls, and while Keycloak is unavailable the last successful listing is served.
+ *
+ * <p>Creating and deleting users is available as {@link #createUserAsync} and {@link #deleteUserAsync},
+ * which compose the {@link KeycloakAdminClient} futures instead of waiting on them, so with
+ * {@code keycloak.admin.client=http} no thread is held while Keycloak works. The blocking
+ * {@link #createUser} and {@link #deleteUser} wait for them. Listings stay blocking: once the
+ * {@link RealmMirror} is loaded they are answered from memory, and before that the coalescing and
+ * caching in front of them needs a result to share.
  *
  * @author Amar Pattanshetti
  * 
@@ -27,39 +43,111 @@ import jakarta.ws.rs.core.Response; // ✅ correct for Spring Boot 3
 
 @Service
 public class KeycloakAdminService {
-    private final RealmResource realmResource;
+    /** Keycloak returns at most 100 users per listing call unless asked for a page explicitly. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final KeycloakAdminClient adminClient;
+    private final RealmRoleCatalog roleCatalog;
+    private final UserRoleResolver roleResolver;
+    private final UsernameIndex usernameIndex;
+    private final RealmMirror realmMirror;
+    private final RoleSetInterner roleSets;
+    private final KeycloakReadCoalescer reads;
+    private final ApplicationEventPublisher eventPublisher;
 
     public KeycloakAdminService(
-            @Value("${keycloak.server-url}") String serverUrl,
-            @Value("${keycloak.realm}") String realm,
-            @Value("${keycloak.admin.username}") String username,
-            @Value("${keycloak.admin.password}") String password
+            KeycloakAdminClient adminClient,
+            @Value("${keycloak.roles.min-refresh-interval:PT30S}") Duration roleMinRefreshInterval,
+            UsernameIndex usernameIndex,
+            RealmMirror realmMirror,
+            RoleSetInterner roleSets,
+            KeycloakReadCoalescer reads,
+            ApplicationEventPublisher eventPublisher
     ) {
-        Keycloak keycloak = KeycloakBuilder.builder()
-                .serverUrl(serverUrl)
-                .realm("master")
-                .clientId("admin-cli")
-                .username(username)
-                .password(password)
-                .build();
-
-        this.realmResource = keycloak.realm(realm);
+        this.adminClient = adminClient;
+        this.roleCatalog = new RealmRoleCatalog(adminClient, roleMinRefreshInterval);
+        this.roleResolver = new UserRoleResolver(adminClient, roleCatalog);
+        this.usernameIndex = usernameIndex;
+        this.realmMirror = realmMirror;
+        this.roleSets = roleSets;
+        this.reads = reads;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * @return all users of the realm as an unmodifiable list
+     */
     public List<UserSummary> getAllUsers() {
-        return realmResource.users().list().stream()
-                .map(user -> new UserSummary(
-                        user.getUsername(),
-                        user.getEmail(),
-                        ((user.getFirstName() != null ? user.getFirstName() : "") + 
-                         " " + 
-                         (user.getLastName() != null ? user.getLastName() : "")).trim(),
-                        getUserRoles(user.getId())
-                ))
-                .collect(Collectors.toList());
+        return reads.read("users.all", "users.all", () -> {
+            // The whole realm is held anyway: one members lookup per realm role instead of one role lookup per user
+            Map<String, List<String>> rolesByUserId = roleResolver.resolveAll();
+            List<UserSummary> users = new ArrayList<>();
+            forEachPage(DEFAULT_PAGE_SIZE, page -> users.addAll(toSummaries(page, rolesByUserId)));
+            return List.copyOf(users);
+        });
+    }
+
+    /**
+     * Returns one page of users, passing {@code first}/{@code max} straight through to Keycloak.
+     * Only the roles of the users on the page are looked up.
+     *
+     * @param first offset of the first user to return
+     * @param max   maximum number of users to return
+     * @return the users of the requested page as an unmodifiable list
+     */
+    public List<UserSummary> getUsers(int first, int max) {
+        return reads.read("users.page", List.of("users.page", first, max), () -> {
+            List<UserRepresentation> page = KeycloakExecution.join(adminClient.listUsers(first, max));
+            return List.copyOf(toSummaries(page, roleResolver.resolve(page)));
+        });
+    }
+
+    /**
+     * Walks the whole realm page by page and hands each page to the consumer as soon as
+     * Keycloak returns it, so callers never need to hold the full user list. Roles are looked up
+     * per page, so neither memory use nor the time to the first page grow with the realm.
+     *
+     * @param pageSize     number of users requested from Keycloak per call
+     * @param pageConsumer receives each non-empty page in order
+     */
+    public void streamUsers(int pageSize, Consumer<List<UserSummary>> pageConsumer) {
+        forEachPage(pageSize, page -> pageConsumer.accept(toSummaries(page, roleResolver.resolve(page))));
+    }
+
+    private void forEachPage(int pageSize, Consumer<List<UserRepresentation>> pageConsumer) {
+        int first = 0;
+        List<UserRepresentation> page;
+        do {
+            page = KeycloakExecution.join(adminClient.listUsers(first, pageSize));
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+            }
+            first += pageSize;
+        } while (page.size() == pageSize);
     }
 
     public void createUser(CreateUserRequest request) {
+        KeycloakExecution.join(createUserAsync(request));
+    }
+
+    /**
+     * Creates a user and assigns its realm roles without blocking the calling thread on Keycloak.
+     *
+     * @return completes once the user exists with its roles, or fails with the reason it could not be
+     * created, including an unknown role
+     */
+    public CompletableFuture<Void> createUserAsync(CreateUserRequest request) {
+        // Resolve roles first so an unknown role does not leave a user without roles behind
+        List<String> roleNames = request.getRoles() != null ? request.getRoles() : List.of();
+        List<RoleRepresentation> roles;
+        try {
+            roles = roleNames.stream()
+                    .map(this::getRealmRole)
+                    .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
         UserRepresentation user = new UserRepresentation();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
@@ -73,42 +161,130 @@ public class KeycloakAdminService {
         credential.setTemporary(false);
         user.setCredentials(List.of(credential));
 
-        // Create user
-        Response response = realmResource.users().create(user);
-        if (response.getStatus() != 201) {
-            String body = response.readEntity(String.class);
-            throw new RuntimeException("User creation failed: " + body);
+        // Create user, then assign roles
+        return adminClient.createUser(user)
+                .thenCompose(userId -> roles.isEmpty()
+                        ? CompletableFuture.completedFuture(userId)
+                        : adminClient.addRealmRoleMappings(userId, roles).thenApply(done -> userId))
+                .thenAccept(userId -> {
+                    reads.invalidate();
+                    eventPublisher.publishEvent(new UserCreatedEvent(userId, new UserSummary(
+                            user.getUsername(),
+                            user.getEmail(),
+                            user.getFirstName() != null ? user.getFirstName() : "",
+                            roleSets.intern(roleNames))));
+                });
+    }
+
+    /**
+     * Looks up a realm role by name in the cached role catalog.
+     *
+     * @param role the realm role name, not "ROLE_" prefixed
+     * @return the role representation
+     * @throws RuntimeException if the role does not exist in Keycloak
+     */
+    public RoleRepresentation getRealmRole(String role) {
+        RoleRepresentation representation = roleCatalog.get(role);
+        if (representation == null) {
+            throw new RuntimeException("Role not found in Keycloak: " + role);
         }
+        return representation;
+    }
+
+    @Scheduled(initialDelayString = "${keycloak.roles.refresh-interval:PT10M}",
+            fixedDelayString = "${keycloak.roles.refresh-interval:PT10M}")
+    public void refreshRoleCatalog() {
+        roleCatalog.refresh();
+    }
 
-        // Get userId safely
-        String userId = CreatedResponseUtil.getCreatedId(response);
 
-        // Assign roles
-        List<RoleRepresentation> roles = request.getRoles().stream()
-        	    .map(role -> {
-        	        try {
-        	            return realmResource.roles().get(role).toRepresentation(); // Not "ROLE_" prefixed
-        	        } catch (NotFoundException e) {
-        	            throw new RuntimeException("Role not found in Keycloak: " + role);
-        	        }
-        	    })
-        	    .collect(Collectors.toList());
+    /**
+     * Deletes the user with exactly the given username.
+     *
+     * <p>The user id comes from the {@link RealmMirror} once it is ready, and from the
+     * {@link UsernameIndex} before that. Since either can be stale, for example after the user was
+     * renamed outside this application and the id now belongs to someone else, the user behind the
+     * id is read back and only removed if its username still matches. On a miss or a stale id the id
+     * is looked up with an exact-match search instead; a substring search could match, and delete,
+     * a different user.
+     *
+     * @param username the username of the user to delete
+     */
+    public void deleteUser(String username) {
+        KeycloakExecution.join(deleteUserAsync(username));
+    }
 
+    /**
+     * Deletes the user with exactly the given username without blocking the calling thread on
+     * Keycloak; see {@link #deleteUser(String)}.
+     *
+     * @return completes once the user is gone, or right away if no such user exists
+     */
+    public CompletableFuture<Void> deleteUserAsync(String username) {
+        String indexedId = realmMirror.isReady() ? realmMirror.userId(username) : usernameIndex.get(username);
+        CompletableFuture<String> verifiedId = indexedId != null
+                ? isUserNamed(indexedId, username).thenApply(named -> named ? indexedId : null)
+                : CompletableFuture.completedFuture(null);
+        return verifiedId
+                .thenCompose(userId -> {
+                    if (userId != null) {
+                        return CompletableFuture.completedFuture(userId);
+                    }
+                    if (indexedId != null) {
+                        usernameIndex.remove(username);
+                    }
+                    return findUserId(username);
+                })
+                .thenCompose(userId -> userId != null
+                        ? removeUser(userId, username)
+                        : CompletableFuture.completedFuture(null));
+    }
 
-        realmResource.users().get(userId).roles().realmLevel().add(roles);
+    private CompletableFuture<Boolean> isUserNamed(String userId, String username) {
+        return adminClient.getUser(userId).handle((user, failure) -> {
+            if (failure == null) {
+                return username.equalsIgnoreCase(user.getUsername());
+            }
+            if (KeycloakExecution.unwrap(failure) instanceof NotFoundException) {
+                return false;
+            }
+            throw failure instanceof CompletionException e ? e : new CompletionException(failure);
+        });
     }
 
+    private CompletableFuture<Void> removeUser(String userId, String username) {
+        return adminClient.removeUser(userId).thenRun(() -> {
+            reads.invalidate();
+            eventPublisher.publishEvent(new UserDeletedEvent(userId, username));
+        });
+    }
 
-    public void deleteUser(String username) {
-        UserRepresentation user = realmResource.users().search(username).stream().findFirst().orElse(null);
-        if (user != null) {
-            realmResource.users().get(user.getId()).remove();
-        }
+    private CompletableFuture<String> findUserId(String username) {
+        return adminClient.searchUsersByUsername(username).thenApply(users -> users.stream()
+                .filter(user -> username.equalsIgnoreCase(user.getUsername()))
+                .findFirst()
+                .map(user -> {
+                    usernameIndex.put(user.getUsername(), user.getId());
+                    return user.getId();
+                })
+                .orElse(null));
     }
 
-    private List<String> getUserRoles(String userId) {
-        return realmResource.users().get(userId).roles().realmLevel().listAll().stream()
-                .map(RoleRepresentation::getName)
+    private List<UserSummary> toSummaries(List<UserRepresentation> users, Map<String, List<String>> rolesByUserId) {
+        users.forEach(user -> usernameIndex.put(user.getUsername(), user.getId()));
+        return users.stream()
+                .map(user -> toSummary(user, roleSets.intern(UserRoleResolver.rolesOf(rolesByUserId, user.getId()))))
                 .collect(Collectors.toList());
     }
+
+    static UserSummary toSummary(UserRepresentation user, List<String> roles) {
+        return new UserSummary(
+                user.getUsername(),
+                user.getEmail(),
+                ((user.getFirstName() != null ? user.getFirstName() : "") + 
+                 " " + 
+                 (user.getLastName() != null ? user.getLastName() : "")).trim(),
+                roles
+        );
+    }
 }
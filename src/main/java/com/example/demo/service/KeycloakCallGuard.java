@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakExecutionProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Wraps every Keycloak admin API call made by {@link KeycloakAdminService}.
+ *
+ * <p>A call is first checked against the {@link KeycloakCircuitBreaker}, which rejects it immediately
+ * while Keycloak is known to be unhealthy, and is then admitted by a bulkhead that caps the number of
+ * calls in flight, whichever thread makes them: a call waits up to the
+ * configured acquire timeout for a free slot and otherwise fails with
+ * {@link KeycloakUnavailableException}, so a slow Keycloak cannot be flooded by thousands of
+ * concurrent admin requests. Slots are handed out first come, first served. A blocking
+ * {@link #call} waits on its own thread; a {@link #callAsync} waits in the queue without holding a
+ * thread and is started by the call that frees its slot.
+ *
+ * <p>Each call is timed as {@code keycloak.admin.calls}, tagged with the operation and its outcome,
+ * and the time spent waiting for a slot is recorded separately as {@code keycloak.admin.calls.wait}.
+ * Together they separate Keycloak latency from queueing on our side. The bulkhead state is published
+ * as the gauges {@code keycloak.admin.bulkhead.available} and {@code keycloak.admin.bulkhead.waiting}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class KeycloakCallGuard {
+
+	private final Object lock = new Object();
+	/** Calls waiting for a slot, oldest first. Removing a waiter under the lock claims it. */
+	private final Deque<Waiter> waiters = new ArrayDeque<>();
+	private int availableSlots;
+	private final long acquireTimeoutMillis;
+	private final KeycloakCircuitBreaker circuitBreaker;
+	private final MeterRegistry meterRegistry;
+	/** Registered once per operation and outcome rather than looked up in the registry on every call. */
+	private final ConcurrentMap<MeterKey, Timer> callTimers = new ConcurrentHashMap<>();
+	private final ConcurrentMap<MeterKey, Timer> waitTimers = new ConcurrentHashMap<>();
+
+	public KeycloakCallGuard(KeycloakExecutionProperties properties, KeycloakCircuitBreaker circuitBreaker,
+			MeterRegistry meterRegistry) {
+		this.availableSlots = properties.getMaxConcurrentCalls();
+		this.acquireTimeoutMillis = properties.getAcquireTimeout().toMillis();
+		this.circuitBreaker = circuitBreaker;
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("keycloak.admin.bulkhead.available", this, KeycloakCallGuard::availableSlots)
+				.description("Free slots for Keycloak admin API calls")
+				.register(meterRegistry);
+		Gauge.builder("keycloak.admin.bulkhead.waiting", this, KeycloakCallGuard::waitingCalls)
+				.description("Keycloak admin API calls waiting for a free slot")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Runs one Keycloak admin API call.
+	 *
+	 * @param operation short name of the call used as metric tag, e.g. {@code users.list}
+	 * @param call      the remote call
+	 * @return the result of the call
+	 */
+	public <T> T call(String operation, Supplier<T> call) {
+		awaitSlot(acquire(operation));
+		long start = System.nanoTime();
+		RuntimeException failure = null;
+		try {
+			return call.get();
+		} catch (RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			complete(operation, start, failure);
+		}
+	}
+
+	/**
+	 * Starts one non-blocking Keycloak admin API call. No thread waits for a free slot: the call is
+	 * queued and started by the thread that frees one, and its future fails with
+	 * {@link KeycloakUnavailableException} when no slot frees up within the acquire timeout. The slot
+	 * is held until the returned future completes rather than until this method returns.
+	 *
+	 * @param operation short name of the call used as metric tag, e.g. {@code users.list}
+	 * @param call      starts the remote call
+	 * @return the future result of the call
+	 */
+	public <T> CompletableFuture<T> callAsync(String operation, Supplier<CompletableFuture<T>> call) {
+		Waiter waiter = acquire(operation);
+		if (waiter.slot().isDone() && !waiter.slot().isCompletedExceptionally()) {
+			return start(operation, call);
+		}
+		return waiter.slot().thenCompose(granted -> start(operation, call));
+	}
+
+	public void run(String operation, Runnable call) {
+		call(operation, () -> {
+			call.run();
+			return null;
+		});
+	}
+
+	private <T> CompletableFuture<T> start(String operation, Supplier<CompletableFuture<T>> call) {
+		long start = System.nanoTime();
+		CompletableFuture<T> future;
+		try {
+			future = call.get();
+		} catch (RuntimeException e) {
+			complete(operation, start, e);
+			return CompletableFuture.failedFuture(e);
+		}
+		return future.whenComplete((result, failure) -> complete(operation, start, failure));
+	}
+
+	private void complete(String operation, long start, Throwable failure) {
+		releaseSlot();
+		circuitBreaker.onResult(failure);
+		callTimer(operation, failure == null ? "success" : "error")
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Takes a free slot, or queues for one until the acquire timeout, without blocking.
+	 */
+	private Waiter acquire(String operation) {
+		circuitBreaker.acquirePermission();
+		Waiter waiter = new Waiter(operation, System.nanoTime(), new CompletableFuture<>());
+		boolean free;
+		synchronized (lock) {
+			free = availableSlots > 0 && waiters.isEmpty();
+			if (free) {
+				availableSlots--;
+			} else if (acquireTimeoutMillis > 0) {
+				waiters.addLast(waiter);
+			}
+		}
+		if (free) {
+			grant(waiter);
+		} else if (acquireTimeoutMillis <= 0) {
+			reject(waiter);
+		} else {
+			CompletableFuture.delayedExecutor(acquireTimeoutMillis, TimeUnit.MILLISECONDS).execute(() -> {
+				if (dequeue(waiter)) {
+					reject(waiter);
+				}
+			});
+		}
+		return waiter;
+	}
+
+	private void awaitSlot(Waiter waiter) {
+		try {
+			waiter.slot().get();
+		} catch (ExecutionException e) {
+			throw (KeycloakUnavailableException) e.getCause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (dequeue(waiter)) {
+				circuitBreaker.releasePermission();
+			} else {
+				// Granted meanwhile: hand the slot back unused
+				waiter.slot().thenRun(() -> {
+					releaseSlot();
+					circuitBreaker.releasePermission();
+				});
+			}
+			throw new KeycloakUnavailableException("Interrupted while waiting for a Keycloak call slot", e);
+		}
+	}
+
+	private void releaseSlot() {
+		Waiter next;
+		synchronized (lock) {
+			next = waiters.pollFirst();
+			if (next == null) {
+				availableSlots++;
+				return;
+			}
+		}
+		grant(next);
+	}
+
+	private boolean dequeue(Waiter waiter) {
+		synchronized (lock) {
+			return waiters.remove(waiter);
+		}
+	}
+
+	private void grant(Waiter waiter) {
+		waitTimer(waiter.operation(), "acquired").record(System.nanoTime() - waiter.start(), TimeUnit.NANOSECONDS);
+		waiter.slot().complete(null);
+	}
+
+	private void reject(Waiter waiter) {
+		circuitBreaker.releasePermission();
+		waitTimer(waiter.operation(), "rejected").record(System.nanoTime() - waiter.start(), TimeUnit.NANOSECONDS);
+		waiter.slot().completeExceptionally(new KeycloakUnavailableException("Too many concurrent calls to Keycloak"));
+	}
+
+	private int availableSlots() {
+		synchronized (lock) {
+			return availableSlots;
+		}
+	}
+
+	private int waitingCalls() {
+		synchronized (lock) {
+			return waiters.size();
+		}
+	}
+
+	private Timer callTimer(String operation, String outcome) {
+		return callTimers.computeIfAbsent(new MeterKey(operation, outcome), key -> Timer.builder("keycloak.admin.calls")
+				.description("Calls to the Keycloak admin API")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry));
+	}
+
+	private Timer waitTimer(String operation, String outcome) {
+		return waitTimers.computeIfAbsent(new MeterKey(operation, outcome), key -> Timer.builder("keycloak.admin.calls.wait")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry));
+	}
+
+	private record MeterKey(String operation, String outcome) {
+	}
+
+	private record Waiter(String operation, long start, CompletableFuture<Void> slot) {
+	}
+}
@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakResilienceProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Circuit breaker in front of the Keycloak admin API, consulted by {@link KeycloakCallGuard}.
+ *
+ * <p>While closed, the outcome of the last {@code sliding-window-size} calls is kept, and once at
+ * least {@code minimum-calls} are recorded and {@code failure-rate-threshold} percent of them failed,
+ * the circuit opens. An open circuit rejects calls immediately with
+ * {@link KeycloakUnavailableException} instead of letting each of them wait out Keycloak's timeouts.
+ * After {@code open-duration} it turns half-open and lets {@code half-open-calls} trial calls
+ * through: if all succeed the circuit closes, a single failure opens it again.
+ *
+ * <p>Only failures that point at an unhealthy Keycloak count: timeouts, I/O errors and 5xx responses.
+ * Client errors such as 404 or 409 are answers and count as successes.
+ *
+ * <p>The current state is published as the gauge {@code keycloak.admin.circuit.state}, one series per
+ * state with value 1 for the active one, next to {@code keycloak.admin.circuit.failure-rate} and the
+ * counters {@code keycloak.admin.circuit.transitions} and {@code keycloak.admin.circuit.not-permitted}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class KeycloakCircuitBreaker {
+
+	private static final Logger log = LoggerFactory.getLogger(KeycloakCircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int minimumCalls;
+	private final int failureRateThreshold;
+	private final long openNanos;
+	private final int halfOpenCalls;
+	private final MeterRegistry meterRegistry;
+	private final Counter notPermitted;
+	/** Transition counters by the ordinals of the previous and the next state, registered on first use. */
+	private final Counter[][] transitions = new Counter[State.values().length][State.values().length];
+
+	/** Outcomes of the most recent calls while closed, {@code true} for a failure. */
+	private final boolean[] window;
+	private int windowNext;
+	private int windowCalls;
+	private int windowFailures;
+
+	private volatile State state = State.CLOSED;
+	private long openedAt;
+	private int halfOpenStarted;
+	private int halfOpenSucceeded;
+
+	public KeycloakCircuitBreaker(KeycloakResilienceProperties properties, MeterRegistry meterRegistry) {
+		this.window = new boolean[properties.getSlidingWindowSize()];
+		this.minimumCalls = Math.min(properties.getMinimumCalls(), window.length);
+		this.failureRateThreshold = properties.getFailureRateThreshold();
+		this.openNanos = properties.getOpenDuration().toNanos();
+		this.halfOpenCalls = properties.getHalfOpenCalls();
+		this.meterRegistry = meterRegistry;
+		this.notPermitted = Counter.builder("keycloak.admin.circuit.not-permitted")
+				.description("Keycloak admin API calls rejected by the circuit breaker")
+				.register(meterRegistry);
+		for (State s : State.values()) {
+			Gauge.builder("keycloak.admin.circuit.state", this, breaker -> breaker.state == s ? 1 : 0)
+					.description("State of the Keycloak admin API circuit breaker")
+					.tag("state", s.name().toLowerCase(Locale.ROOT))
+					.register(meterRegistry);
+		}
+		Gauge.builder("keycloak.admin.circuit.failure-rate", this, KeycloakCircuitBreaker::failureRate)
+				.description("Failure rate in percent over the circuit breaker's sliding window")
+				.register(meterRegistry);
+	}
+
+	public State state() {
+		return state;
+	}
+
+	/**
+	 * Admits one call or rejects it. An admitted call must be followed by exactly one
+	 * {@link #onResult(Throwable)} or {@link #releasePermission()}.
+	 *
+	 * @throws KeycloakUnavailableException if the circuit is open, or half-open with all trial calls
+	 *                                      already admitted
+	 */
+	public synchronized void acquirePermission() {
+		if (state == State.OPEN) {
+			if (System.nanoTime() - openedAt < openNanos) {
+				notPermitted.increment();
+				throw new KeycloakUnavailableException("Keycloak circuit breaker is open");
+			}
+			transitionTo(State.HALF_OPEN);
+		}
+		if (state == State.HALF_OPEN) {
+			if (halfOpenStarted >= halfOpenCalls) {
+				notPermitted.increment();
+				throw new KeycloakUnavailableException("Keycloak circuit breaker is half-open, waiting for trial calls");
+			}
+			halfOpenStarted++;
+		}
+	}
+
+	/**
+	 * Gives back a permission whose call was never made.
+	 */
+	public synchronized void releasePermission() {
+		if (state == State.HALF_OPEN && halfOpenStarted > halfOpenSucceeded) {
+			halfOpenStarted--;
+		}
+	}
+
+	/**
+	 * Records the outcome of an admitted call.
+	 *
+	 * @param failure what the call failed with, or {@code null} if it succeeded
+	 */
+	public synchronized void onResult(Throwable failure) {
+		boolean failed = isFailure(failure);
+		switch (state) {
+		case CLOSED -> {
+			record(failed);
+			if (windowCalls >= minimumCalls && failureRate() >= failureRateThreshold) {
+				transitionTo(State.OPEN);
+			}
+		}
+		case HALF_OPEN -> {
+			if (failed) {
+				transitionTo(State.OPEN);
+			} else if (++halfOpenSucceeded >= halfOpenCalls) {
+				transitionTo(State.CLOSED);
+			}
+		}
+		case OPEN -> {
+			// A call admitted before the circuit opened; its outcome no longer matters
+		}
+		}
+	}
+
+	/**
+	 * @return {@code true} if {@code failure} indicates that Keycloak itself is unhealthy, as opposed
+	 * to an answer such as "not found"
+	 */
+	public static boolean isFailure(Throwable failure) {
+		Throwable cause = failure;
+		while (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause == null) {
+			return false;
+		}
+		if (cause instanceof WebApplicationException e && e.getResponse() != null) {
+			return e.getResponse().getStatus() >= 500;
+		}
+		return true;
+	}
+
+	private void record(boolean failed) {
+		if (windowCalls == window.length) {
+			if (window[windowNext]) {
+				windowFailures--;
+			}
+		} else {
+			windowCalls++;
+		}
+		window[windowNext] = failed;
+		if (failed) {
+			windowFailures++;
+		}
+		windowNext = (windowNext + 1) % window.length;
+	}
+
+	private double failureRate() {
+		int calls = windowCalls;
+		return calls == 0 ? 0 : 100.0 * windowFailures / calls;
+	}
+
+	private void transitionTo(State next) {
+		State previous = state;
+		state = next;
+		switch (next) {
+		case OPEN -> openedAt = System.nanoTime();
+		case HALF_OPEN -> {
+			halfOpenStarted = 0;
+			halfOpenSucceeded = 0;
+		}
+		case CLOSED -> {
+			windowNext = 0;
+			windowCalls = 0;
+			windowFailures = 0;
+		}
+		}
+		Counter transitionCounter = transitions[previous.ordinal()][next.ordinal()];
+		if (transitionCounter == null) {
+			transitionCounter = Counter.builder("keycloak.admin.circuit.transitions")
+					.tag("from", previous.name().toLowerCase(Locale.ROOT))
+					.tag("to", next.name().toLowerCase(Locale.ROOT))
+					.register(meterRegistry);
+			transitions[previous.ordinal()][next.ordinal()] = transitionCounter;
+		}
+		transitionCounter.increment();
+		if (next == State.OPEN) {
+			log.warn("Keycloak circuit breaker opened ({} -> {}), rejecting admin calls for {} ms",
+					previous, next, openNanos / 1_000_000);
+		} else {
+			log.info("Keycloak circuit breaker {} -> {}", previous, next);
+		}
+	}
+}
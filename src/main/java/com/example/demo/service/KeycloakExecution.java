@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakExecutionProperties;
+
+/**
+ * Decides where Keycloak-bound work runs.
+ *
+ * <p>By default admin requests run on the Tomcat request thread, as before, and fan-out calls inside
+ * {@link KeycloakAdminService} run on a small platform thread pool. With
+ * {@code keycloak.admin.execution.virtual-threads=true}, both the request handling and the fan-out
+ * run on virtual threads, so requests blocked on a slow Keycloak no longer hold Tomcat threads needed
+ * by {@code /api/hello}. Virtual threads need a Java 21+ runtime; on older runtimes startup fails
+ * with an {@link UnsupportedOperationException}.
+ *
+ * <p>The number of concurrent calls toward Keycloak is capped separately by {@link KeycloakCallGuard}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class KeycloakExecution implements DisposableBean {
+
+	private static final ThreadLocal<Boolean> IN_FAN_OUT = ThreadLocal.withInitial(() -> false);
+
+	private final boolean virtualThreads;
+	private final AsyncTaskExecutor executor;
+
+	public KeycloakExecution(KeycloakExecutionProperties properties) {
+		this.virtualThreads = properties.isVirtualThreads();
+		if (virtualThreads) {
+			SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("keycloak-vt-");
+			virtualExecutor.setVirtualThreads(true);
+			this.executor = virtualExecutor;
+		} else {
+			ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+			pool.setThreadNamePrefix("keycloak-");
+			pool.setCorePoolSize(properties.getFanOutThreads());
+			pool.setMaxPoolSize(properties.getFanOutThreads());
+			pool.initialize();
+			this.executor = pool;
+		}
+	}
+
+	/**
+	 * Runs an admin request. On virtual threads the work is handed off and the servlet thread is
+	 * released; otherwise it runs inline on the calling thread.
+	 */
+	public <T> CompletableFuture<T> handle(Supplier<T> request) {
+		if (virtualThreads) {
+			return CompletableFuture.supplyAsync(request, executor);
+		}
+		return CompletableFuture.completedFuture(request.get());
+	}
+
+	/**
+	 * Runs one branch of a fan-out. Branches must not wait on other branches.
+	 */
+	public <T> CompletableFuture<T> fanOut(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(() -> {
+			IN_FAN_OUT.set(true);
+			try {
+				return task.get();
+			} finally {
+				IN_FAN_OUT.remove();
+			}
+		}, executor);
+	}
+
+	/**
+	 * @return {@code true} when called from inside a fan-out branch, where handing off more work to
+	 * the pool and waiting for it could starve the pool
+	 */
+	public static boolean inFanOut() {
+		return IN_FAN_OUT.get();
+	}
+
+	/**
+	 * Waits for a fan-out branch and rethrows its failure unwrapped.
+	 */
+	public static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the failure a dependent stage of a {@link CompletableFuture} was completed with, without
+	 * the {@link CompletionException} wrapping it
+	 */
+	public static Throwable unwrap(Throwable failure) {
+		Throwable cause = failure;
+		while (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+	@Override
+	public void destroy() {
+		if (executor instanceof ThreadPoolTaskExecutor pool) {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakResilienceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical concurrent reads of {@link KeycloakAdminService} and serves their last result
+ * while Keycloak is unavailable.
+ *
+ * <p>The first caller of a read runs it; callers asking for the same key while it is in flight wait
+ * for that result instead of sending their own requests to Keycloak. The last successful result of
+ * each read is kept for {@code keycloak.admin.resilience.stale-max-age}. When a read fails because
+ * Keycloak is unhealthy, including when the {@link KeycloakCircuitBreaker} or the bulkhead reject it,
+ * that result is returned instead of the error. Answers such as "not found" are never replaced.
+ *
+ * <p>Reads in flight are published as the gauge {@code keycloak.admin.reads.in-flight}; reads that
+ * joined another caller's call and stale results served are counted as
+ * {@code keycloak.admin.reads.coalesced} and {@code keycloak.admin.reads.stale}, tagged by read.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class KeycloakReadCoalescer {
+
+	private static final Logger log = LoggerFactory.getLogger(KeycloakReadCoalescer.class);
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final Cache<Object, Object> lastResults;
+	private final MeterRegistry meterRegistry;
+	/** Counters by name and read, registered on first use. */
+	private final ConcurrentMap<List<String>, Counter> counters = new ConcurrentHashMap<>();
+
+	public KeycloakReadCoalescer(KeycloakResilienceProperties properties, MeterRegistry meterRegistry) {
+		this.lastResults = Caffeine.newBuilder()
+				.maximumSize(properties.getStaleMaxEntries())
+				.expireAfterWrite(properties.getStaleMaxAge())
+				.build();
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("keycloak.admin.reads.in-flight", inFlight, ConcurrentMap::size)
+				.description("Distinct Keycloak admin reads in flight")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Runs a read, or joins the identical read already in flight.
+	 *
+	 * @param read name of the read used as metric tag, e.g. {@code users.all}
+	 * @param key  identifies identical reads; must implement {@code equals} and {@code hashCode}
+	 * @param load performs the read; its result is shared between callers and must not be modified
+	 * @return the result, possibly the last successful one if Keycloak is unavailable
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T read(String read, Object key, Supplier<T> load) {
+		CompletableFuture<Object> own = new CompletableFuture<>();
+		CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+		if (running != null) {
+			counter("keycloak.admin.reads.coalesced", read).increment();
+			try {
+				return (T) KeycloakExecution.join(running);
+			} catch (RuntimeException e) {
+				return stale(read, key, e);
+			}
+		}
+
+		try {
+			T result = load.get();
+			lastResults.put(key, result);
+			own.complete(result);
+			return result;
+		} catch (Throwable t) {
+			own.completeExceptionally(t);
+			if (t instanceof RuntimeException e) {
+				return stale(read, key, e);
+			}
+			throw t;
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * Lets reads started from now on go to Keycloak rather than join a call that began before a
+	 * change. Callers already waiting still get that call's result.
+	 */
+	public void invalidate() {
+		inFlight.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T stale(String read, Object key, RuntimeException failure) {
+		if (KeycloakCircuitBreaker.isFailure(failure)) {
+			Object result = lastResults.getIfPresent(key);
+			if (result != null) {
+				counter("keycloak.admin.reads.stale", read).increment();
+				log.debug("Serving stale {} after Keycloak failure: {}", read, failure.toString());
+				return (T) result;
+			}
+		}
+		throw failure;
+	}
+
+	private Counter counter(String name, String read) {
+		return counters.computeIfAbsent(List.of(name, read), key -> Counter.builder(name)
+				.tag("read", read)
+				.register(meterRegistry));
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a call to the Keycloak admin API cannot be made right now, for example because too
+ * many calls are already in flight. Surfaces to clients as {@code 503 Service Unavailable}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class KeycloakUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public KeycloakUnavailableException(String message) {
+		super(message);
+	}
+
+	public KeycloakUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,609 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.RealmMirrorProperties;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Local replica of the realm's users and their realm roles, kept in sync with Keycloak in the background.
+ *
+ * <p>On startup, and then every {@code realm-mirror.full-sync-interval}, the mirror lists all users
+ * page by page and resolves their roles with one member listing per realm role. In between it polls
+ * the realm's admin events every {@code realm-mirror.poll-interval} and re-reads only the users those
+ * events touch. Changes made through this application are applied immediately from the user
+ * created/deleted events. Role deletions, realm imports and bursts of more than
+ * {@code realm-mirror.max-events-per-poll} events trigger a full sync instead. Keycloak only records
+ * admin events when they are enabled for the realm; without them the mirror still catches up with
+ * outside changes at every full sync.
+ *
+ * <p>The replica is an immutable snapshot sorted by username, as Keycloak lists users, and is replaced
+ * as a whole, so readers never lock and never see a partly applied update. Changes are collected
+ * and published together by the next reader, so a burst such as a bulk import costs one new snapshot
+ * rather than one per user, and that snapshot merges the changed users into the sorted list of the
+ * previous one instead of sorting all users again. A full sync also resets the {@link UsernameIndex}
+ * to the users it found, dropping names that were changed or removed outside this application. Until the
+ * first full sync has completed, or a snapshot file has been loaded, {@link #isReady()} is
+ * {@code false} and readers must go to Keycloak.
+ * When Keycloak is unreachable the last snapshot keeps being served. Syncs and snapshot file writes run
+ * on the mirror's own thread, so a long full sync never holds up the tasks of the shared scheduler,
+ * such as token and key refreshes.
+ *
+ * <p>With {@code realm-mirror.snapshot-file} set, which it is not by default, the replica is written
+ * to that file every {@code realm-mirror.snapshot-interval} when it has changed, and on shutdown. The
+ * file holds user data, so it belongs in a directory only the application can access. A restarted
+ * instance maps the file at startup and serves it immediately, provided it was read from the same
+ * server and realm. It then catches up through the admin events recorded since the file was written,
+ * and runs its next full sync one full sync interval after the one the file goes back to.
+ *
+ * <p>Syncs are timed as {@code realm.mirror.sync}, tagged with the type ({@code full} or
+ * {@code events}) and the outcome. The gauges {@code realm.mirror.users} and {@code realm.mirror.age}
+ * report the size of the replica and the seconds since Keycloak was last read successfully. Snapshot
+ * file reads and writes are timed as {@code realm.mirror.snapshot}, tagged with the operation and outcome.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class RealmMirror implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(RealmMirror.class);
+
+	private final KeycloakAdminClient adminClient;
+	private final RealmRoleCatalog roleCatalog;
+	private final UserRoleResolver roleResolver;
+	private final UsernameIndex usernameIndex;
+	private final RoleSetInterner roleSets;
+	private final RealmMirrorProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final Path snapshotFile;
+	/** Identifies the realm the replica belongs to, so a snapshot file of another realm is ignored. */
+	private final String source;
+
+	private final Object publishLock = new Object();
+	/** Serializes snapshot file writes without waiting for a sync in progress. */
+	private final Object saveLock = new Object();
+	private volatile Snapshot snapshot;
+	/** Changes not yet published in {@link #snapshot}, keyed by user id; guarded by {@link #publishLock}. */
+	private Map<String, UserSummary> pendingChanges = new HashMap<>();
+	private volatile boolean changesPending;
+	private volatile Instant lastSync;
+	/** Local changes made while a full sync runs, re-applied on top of its result. */
+	private Map<String, UserSummary> changesDuringSync;
+
+	private boolean eventsAvailable;
+	/** Keycloak time of the newest admin event applied so far. */
+	private volatile long eventWatermark;
+	/** Events at exactly {@link #eventWatermark} that were already applied. */
+	private Set<String> eventsAtWatermark = Set.of();
+	private long nextFullSync;
+	private volatile Instant lastFullSync = Instant.EPOCH;
+	/** Guarded by {@link #saveLock}. */
+	private long savedVersion;
+	private volatile ThreadPoolTaskScheduler scheduler;
+
+	public RealmMirror(KeycloakAdminClient adminClient, UsernameIndex usernameIndex, RoleSetInterner roleSets,
+			RealmMirrorProperties properties, MeterRegistry meterRegistry,
+			@Value("${keycloak.server-url}") String serverUrl, @Value("${keycloak.realm}") String realm) {
+		this.adminClient = adminClient;
+		this.roleCatalog = new RealmRoleCatalog(adminClient, Duration.ZERO);
+		this.roleResolver = new UserRoleResolver(adminClient, roleCatalog);
+		this.usernameIndex = usernameIndex;
+		this.roleSets = roleSets;
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.snapshotFile = properties.isEnabled() && !properties.getSnapshotFile().isBlank()
+				? Path.of(properties.getSnapshotFile())
+				: null;
+		this.source = serverUrl + "/realms/" + realm;
+		Gauge.builder("realm.mirror.users", this, mirror -> mirror.isReady() ? mirror.current().users().size() : 0)
+				.description("Users held by the realm mirror")
+				.register(meterRegistry);
+		Gauge.builder("realm.mirror.age", this, RealmMirror::age)
+				.description("Seconds since the realm mirror last read Keycloak successfully")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+		loadSnapshotFile();
+	}
+
+	/**
+	 * @return {@code true} once the first full sync has completed or a snapshot file has been loaded
+	 */
+	public boolean isReady() {
+		return properties.isEnabled() && snapshot != null;
+	}
+
+	/**
+	 * @return all users sorted by username, as an unmodifiable list
+	 * @throws IllegalStateException if the mirror is not {@linkplain #isReady() ready}
+	 */
+	public List<UserSummary> users() {
+		Snapshot current = current();
+		if (current == null) {
+			throw new IllegalStateException("Realm mirror has no users loaded yet");
+		}
+		return current.users();
+	}
+
+	/**
+	 * Returns one page of users in the order Keycloak pages them.
+	 *
+	 * @param first offset of the first user to return
+	 * @param max   maximum number of users to return
+	 */
+	public List<UserSummary> users(int first, int max) {
+		List<UserSummary> users = users();
+		if (first >= users.size()) {
+			return List.of();
+		}
+		return users.subList(first, (int) Math.min(users.size(), (long) first + max));
+	}
+
+	/**
+	 * @return the id of the user with the given username, or {@code null} if the mirror does not know it
+	 */
+	public String userId(String username) {
+		Snapshot current = current();
+		return current != null ? current.idsByUsername().get(normalize(username)) : null;
+	}
+
+	/**
+	 * Starts syncing, and writing the snapshot file if one is configured, on the mirror's own thread.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!properties.isEnabled() || scheduler != null) {
+			return;
+		}
+		ThreadPoolTaskScheduler mirrorScheduler = new ThreadPoolTaskScheduler();
+		mirrorScheduler.setPoolSize(1);
+		mirrorScheduler.setThreadNamePrefix("realm-mirror-");
+		mirrorScheduler.initialize();
+		this.scheduler = mirrorScheduler;
+		mirrorScheduler.scheduleWithFixedDelay(this::sync, properties.getPollInterval());
+		if (snapshotFile != null) {
+			mirrorScheduler.scheduleWithFixedDelay(this::saveSnapshotFile,
+					Instant.now().plus(properties.getSnapshotInterval()), properties.getSnapshotInterval());
+		}
+	}
+
+	public synchronized void sync() {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		boolean full = snapshot == null || System.nanoTime() - nextFullSync >= 0;
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "success";
+		try {
+			if (!full && !applyAdminEvents()) {
+				full = true;
+			}
+			if (full) {
+				fullSync();
+			}
+			lastSync = Instant.now();
+		} catch (RuntimeException e) {
+			outcome = "error";
+			log.warn("Realm mirror {} sync failed: {}", full ? "full" : "event", e.toString());
+		} finally {
+			sample.stop(Timer.builder("realm.mirror.sync")
+					.tag("type", full ? "full" : "events")
+					.tag("outcome", outcome)
+					.register(meterRegistry));
+		}
+	}
+
+	/**
+	 * Writes the replica to the snapshot file if it changed since it was last written. Does not wait
+	 * for a sync in progress; the file then holds the replica as of the last completed change.
+	 */
+	public void saveSnapshotFile() {
+		if (snapshotFile == null) {
+			return;
+		}
+		synchronized (saveLock) {
+			// Read before the users, so the file never claims events its users do not reflect yet
+			Instant fullSyncAt = lastFullSync;
+			long watermark = eventWatermark;
+			Snapshot current = current();
+			if (current == null || current.version() == savedVersion) {
+				return;
+			}
+			Timer.Sample sample = Timer.start(meterRegistry);
+			String outcome = "success";
+			try {
+				RealmMirrorSnapshotFile.write(snapshotFile,
+						new RealmMirrorSnapshotFile.Contents(source, fullSyncAt, watermark, current.byId()));
+				savedVersion = current.version();
+			} catch (IOException e) {
+				outcome = "error";
+				log.warn("Cannot write realm mirror snapshot {}: {}", snapshotFile, e.toString());
+			} finally {
+				sample.stop(snapshotTimer("save", outcome));
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		ThreadPoolTaskScheduler running = scheduler;
+		if (running != null) {
+			running.shutdown();
+		}
+		saveSnapshotFile();
+	}
+
+	@EventListener
+	public void onUserCreated(UserCreatedEvent event) {
+		apply(Map.of(event.getUserId(), event.getUser()));
+	}
+
+	@EventListener
+	public void onUserDeleted(UserDeletedEvent event) {
+		Map<String, UserSummary> removal = new HashMap<>();
+		removal.put(event.getUserId(), null);
+		apply(removal);
+	}
+
+	private void fullSync() {
+		synchronized (publishLock) {
+			changesDuringSync = new HashMap<>();
+		}
+		try {
+			// Events recorded from here on are replayed by the next poll, so none can fall between the two
+			AdminEventRepresentation newest = newestAdminEvent();
+
+			roleCatalog.refresh();
+			Map<String, List<String>> rolesByUserId = roleResolver.resolveAll();
+			Map<String, UserSummary> users = new HashMap<>();
+			int pageSize = properties.getPageSize();
+			int first = 0;
+			List<UserRepresentation> page;
+			do {
+				page = KeycloakExecution.join(adminClient.listUsers(first, pageSize));
+				for (UserRepresentation user : page) {
+					users.put(user.getId(), KeycloakAdminService.toSummary(user,
+							roleSets.intern(UserRoleResolver.rolesOf(rolesByUserId, user.getId()))));
+				}
+				first += pageSize;
+			} while (page.size() == pageSize);
+
+			synchronized (publishLock) {
+				changesDuringSync.forEach((id, user) -> {
+					if (user != null) {
+						users.put(id, user);
+					} else {
+						users.remove(id);
+					}
+				});
+				// Earlier unpublished changes were made in Keycloak before this listing, so it has them
+				pendingChanges = new HashMap<>();
+				changesPending = false;
+				snapshot = Snapshot.of(nextVersion(), users);
+				usernameIndex.reset(snapshot.idsByUsername());
+			}
+			lastFullSync = Instant.now();
+			eventWatermark = newest != null ? newest.getTime() : 0;
+			eventsAtWatermark = newest != null ? Set.of(eventKey(newest)) : Set.of();
+			nextFullSync = System.nanoTime() + properties.getFullSyncInterval().toNanos();
+			log.info("Realm mirror loaded {} users", users.size());
+		} finally {
+			synchronized (publishLock) {
+				changesDuringSync = null;
+			}
+		}
+	}
+
+	private AdminEventRepresentation newestAdminEvent() {
+		try {
+			List<AdminEventRepresentation> events = KeycloakExecution.join(
+					adminClient.listAdminEvents(eventDay(System.currentTimeMillis()), 0, 1));
+			eventsAvailable = true;
+			return events.isEmpty() ? null : events.get(0);
+		} catch (RuntimeException e) {
+			if (eventsAvailable || snapshot == null) {
+				log.warn("Cannot read admin events, realm mirror falls back to full syncs only: {}", e.toString());
+			}
+			eventsAvailable = false;
+			return null;
+		}
+	}
+
+	/**
+	 * Applies the admin events recorded since the last poll.
+	 *
+	 * @return {@code false} if the events call for a full sync instead
+	 */
+	private boolean applyAdminEvents() {
+		if (!eventsAvailable) {
+			return true;
+		}
+		long watermark = eventWatermark;
+		String dateFrom = eventDay(watermark > 0 ? watermark : System.currentTimeMillis());
+		int pageSize = properties.getEventPageSize();
+		List<AdminEventRepresentation> events = new ArrayList<>();
+		int first = 0;
+		List<AdminEventRepresentation> page;
+		scan:
+		do {
+			// Newest first: stop at the first event that was already applied
+			page = KeycloakExecution.join(adminClient.listAdminEvents(dateFrom, first, pageSize));
+			for (AdminEventRepresentation event : page) {
+				if (event.getTime() < watermark
+						|| (event.getTime() == watermark && eventsAtWatermark.contains(eventKey(event)))) {
+					break scan;
+				}
+				events.add(event);
+				if (events.size() > properties.getMaxEventsPerPoll()) {
+					log.info("More than {} admin events since the last poll, running a full sync",
+							properties.getMaxEventsPerPoll());
+					return false;
+				}
+			}
+			first += pageSize;
+		} while (page.size() == pageSize);
+		if (events.isEmpty()) {
+			return true;
+		}
+
+		Set<String> userIds = new LinkedHashSet<>();
+		for (AdminEventRepresentation event : events) {
+			String resourceType = event.getResourceType();
+			if ("REALM_ROLE".equals(resourceType) || "REALM".equals(resourceType)) {
+				// Roles renamed or deleted, or a partial import: memberships of any user may have changed
+				return false;
+			}
+			String userId = userIdOf(event.getResourcePath());
+			if (userId != null) {
+				userIds.add(userId);
+			}
+		}
+		apply(readUsers(userIds));
+
+		long newest = events.get(0).getTime();
+		Set<String> atNewest = new HashSet<>(newest == watermark ? eventsAtWatermark : Set.of());
+		for (AdminEventRepresentation event : events) {
+			if (event.getTime() == newest) {
+				atNewest.add(eventKey(event));
+			}
+		}
+		eventWatermark = newest;
+		eventsAtWatermark = atNewest;
+		return true;
+	}
+
+	/**
+	 * Reads the current state of the given users, with {@code null} for users that no longer exist.
+	 */
+	private Map<String, UserSummary> readUsers(Set<String> userIds) {
+		Map<String, CompletableFuture<UserSummary>> reads = new LinkedHashMap<>();
+		for (String userId : userIds) {
+			reads.put(userId, adminClient.getUser(userId).thenCombine(adminClient.listUserRealmRoleMappings(userId),
+					(user, roles) -> KeycloakAdminService.toSummary(user,
+							roleSets.intern(roles.stream().map(RoleRepresentation::getName).toList()))));
+		}
+		Map<String, UserSummary> users = new HashMap<>();
+		reads.forEach((userId, read) -> {
+			try {
+				users.put(userId, KeycloakExecution.join(read));
+			} catch (NotFoundException e) {
+				users.put(userId, null);
+			}
+		});
+		return users;
+	}
+
+	/**
+	 * Records the given users as added, updated or, for {@code null} values, removed. The next reader
+	 * publishes them in a new snapshot.
+	 */
+	private void apply(Map<String, UserSummary> changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+		synchronized (publishLock) {
+			if (changesDuringSync != null) {
+				changesDuringSync.putAll(changes);
+			}
+			Snapshot current = snapshot;
+			if (current == null) {
+				return;
+			}
+			changes.forEach((id, user) -> {
+				UserSummary previous = pendingChanges.containsKey(id) ? pendingChanges.get(id) : current.byId().get(id);
+				if (previous != null && (user == null || !previous.username().equalsIgnoreCase(user.username()))) {
+					usernameIndex.remove(previous.username());
+				}
+				if (user != null) {
+					usernameIndex.put(user.username(), id);
+				}
+				pendingChanges.put(id, user);
+			});
+			changesPending = true;
+		}
+	}
+
+	/**
+	 * @return the snapshot with every change applied so far, publishing pending changes first
+	 */
+	private Snapshot current() {
+		if (changesPending) {
+			synchronized (publishLock) {
+				if (changesPending) {
+					snapshot = snapshot.with(nextVersion(), pendingChanges);
+					pendingChanges = new HashMap<>();
+					changesPending = false;
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	private long nextVersion() {
+		Snapshot current = snapshot;
+		return current != null ? current.version() + 1 : 1;
+	}
+
+	private void loadSnapshotFile() {
+		if (snapshotFile == null) {
+			return;
+		}
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "success";
+		try {
+			RealmMirrorSnapshotFile.Contents contents = RealmMirrorSnapshotFile.read(snapshotFile, roleSets);
+			if (contents == null || !source.equals(contents.source())) {
+				outcome = "skipped";
+				return;
+			}
+			// The username index is left to the first full sync, which confirms the file is still right
+			snapshot = Snapshot.of(nextVersion(), contents.usersById());
+			savedVersion = snapshot.version();
+			lastFullSync = contents.fullSyncAt();
+			eventWatermark = contents.eventWatermark();
+			eventsAvailable = true;
+			Duration untilFullSync = Duration.between(Instant.now(), lastFullSync.plus(properties.getFullSyncInterval()));
+			nextFullSync = System.nanoTime() + Math.max(0, untilFullSync.toNanos());
+			log.info("Realm mirror loaded {} users from {}", contents.usersById().size(), snapshotFile);
+		} catch (IOException e) {
+			outcome = "error";
+			log.warn("Ignoring realm mirror snapshot {}: {}", snapshotFile, e.toString());
+		} finally {
+			sample.stop(snapshotTimer("load", outcome));
+		}
+	}
+
+	private Timer snapshotTimer(String operation, String outcome) {
+		return Timer.builder("realm.mirror.snapshot")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	private double age() {
+		Instant last = lastSync;
+		return last != null ? Duration.between(last, Instant.now()).toMillis() / 1000.0 : Double.NaN;
+	}
+
+	/**
+	 * Keycloak filters admin events by day in its own time zone; starting a day early covers any zone.
+	 */
+	private static String eventDay(long epochMillis) {
+		return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC).minusDays(1).toString();
+	}
+
+	private static String eventKey(AdminEventRepresentation event) {
+		return event.getTime() + " " + event.getOperationType() + " " + event.getResourcePath();
+	}
+
+	/**
+	 * @return the user id of a resource path such as {@code users/{id}/role-mappings/realm}, or
+	 * {@code null} if the path does not denote a user
+	 */
+	private static String userIdOf(String resourcePath) {
+		if (resourcePath == null || !resourcePath.startsWith("users/")) {
+			return null;
+		}
+		int end = resourcePath.indexOf('/', "users/".length());
+		return resourcePath.substring("users/".length(), end < 0 ? resourcePath.length() : end);
+	}
+
+	private static String normalize(String username) {
+		return username.toLowerCase(Locale.ROOT);
+	}
+
+	private record Snapshot(long version, Map<String, UserSummary> byId, List<UserSummary> users,
+			Map<String, String> idsByUsername) {
+
+		private static final Comparator<UserSummary> BY_USERNAME = Comparator.comparing(user -> normalize(user.username()));
+
+		static Snapshot of(long version, Map<String, UserSummary> byId) {
+			TreeMap<String, String> idsByUsername = new TreeMap<>();
+			byId.forEach((id, user) -> idsByUsername.put(normalize(user.username()), id));
+			List<UserSummary> users = new ArrayList<>(idsByUsername.size());
+			idsByUsername.values().forEach(id -> users.add(byId.get(id)));
+			return new Snapshot(version, Map.copyOf(byId), List.copyOf(users), Map.copyOf(idsByUsername));
+		}
+
+		/**
+		 * @return a copy with the given users added, updated or, for {@code null} values, removed, with
+		 * only the changed users sorted and merged into the existing order
+		 */
+		Snapshot with(long version, Map<String, UserSummary> changes) {
+			Map<String, UserSummary> changedById = new HashMap<>(byId);
+			List<Map.Entry<String, UserSummary>> changed = new ArrayList<>();
+			changes.forEach((id, user) -> {
+				if (user != null) {
+					changedById.put(id, user);
+					changed.add(Map.entry(id, user));
+				} else {
+					changedById.remove(id);
+				}
+			});
+			changed.sort(Map.Entry.comparingByValue(BY_USERNAME));
+
+			List<UserSummary> merged = new ArrayList<>(changedById.size());
+			Map<String, String> ids = new HashMap<>(changedById.size() * 4 / 3 + 1);
+			int next = 0;
+			for (UserSummary user : users) {
+				String username = normalize(user.username());
+				String id = idsByUsername.get(username);
+				if (changes.containsKey(id)) {
+					continue;
+				}
+				while (next < changed.size()
+						&& normalize(changed.get(next).getValue().username()).compareTo(username) <= 0) {
+					add(changed.get(next++), merged, ids);
+				}
+				add(Map.entry(id, user), merged, ids);
+			}
+			while (next < changed.size()) {
+				add(changed.get(next++), merged, ids);
+			}
+			return new Snapshot(version, Map.copyOf(changedById), List.copyOf(merged), Map.copyOf(ids));
+		}
+
+		private static void add(Map.Entry<String, UserSummary> user, List<UserSummary> users, Map<String, String> ids) {
+			// The first of two users with the same name wins, as a changed user is merged in before an unchanged one
+			if (ids.putIfAbsent(normalize(user.getValue().username()), user.getKey()) == null) {
+				users.add(user.getValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.example.demo.bean.UserSummary;
+
+/**
+ * Binary file format of a persisted {@link RealmMirror} snapshot.
+ *
+ * <p>Layout, big-endian: the magic {@code RMS1}, the source the data was read from (server URL and
+ * realm), the time of the full sync the data goes back to, the admin event watermark, a table of the
+ * distinct role names, and then every user as id, username, email and name followed by indexes into
+ * the role table. Strings are stored as a length and UTF-8 bytes, with length {@code -1} for
+ * {@code null}. A CRC32 of everything before it closes the file. Every count and length is checked
+ * against the bytes left before anything is allocated for it, so a damaged or foreign file is
+ * rejected with an {@link IOException} rather than exhausting memory.
+ *
+ * <p>Files are written to a temporary file next to the target and moved over it, so a crash never
+ * leaves a partial snapshot behind, and read through a memory mapping instead of stream copies.
+ *
+ * @author Amar Pattanshetti
+ */
+
+final class RealmMirrorSnapshotFile {
+
+	private static final int MAGIC = 0x524D5331;
+
+	private RealmMirrorSnapshotFile() {
+	}
+
+	/**
+	 * The contents of a snapshot file.
+	 *
+	 * @param source         identifies the Keycloak realm the users were read from
+	 * @param fullSyncAt     when the last full sync reflected in the users completed
+	 * @param eventWatermark time of the newest admin event applied to the users, 0 if none
+	 * @param usersById      the users keyed by Keycloak user id
+	 */
+	record Contents(String source, Instant fullSyncAt, long eventWatermark, Map<String, UserSummary> usersById) {
+	}
+
+	static void write(Path file, Contents contents) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try (OutputStream fileOut = Files.newOutputStream(temporary);
+					DataOutputStream out = new DataOutputStream(
+							new CheckedOutputStream(new BufferedOutputStream(fileOut, 64 * 1024), crc))) {
+				Map<String, Integer> roleIndexes = new LinkedHashMap<>();
+				contents.usersById().values().forEach(user -> user.roles()
+						.forEach(role -> roleIndexes.putIfAbsent(role, roleIndexes.size())));
+
+				out.writeInt(MAGIC);
+				writeString(out, contents.source());
+				out.writeLong(contents.fullSyncAt().toEpochMilli());
+				out.writeLong(contents.eventWatermark());
+				out.writeInt(roleIndexes.size());
+				for (String role : roleIndexes.keySet()) {
+					writeString(out, role);
+				}
+				out.writeInt(contents.usersById().size());
+				for (Map.Entry<String, UserSummary> entry : contents.usersById().entrySet()) {
+					UserSummary user = entry.getValue();
+					writeString(out, entry.getKey());
+					writeString(out, user.username());
+					writeString(out, user.email());
+					writeString(out, user.name());
+					out.writeInt(user.roles().size());
+					for (String role : user.roles()) {
+						out.writeInt(roleIndexes.get(role));
+					}
+				}
+				out.flush();
+				// The checksum itself is written past the checked stream
+				new DataOutputStream(fileOut).writeLong(crc.getValue());
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @param roleSets shares the users' role lists with the rest of the application
+	 * @return the contents of the file, or {@code null} if it does not exist
+	 * @throws IOException if the file cannot be read or is not a valid snapshot
+	 */
+	static Contents read(Path file, RoleSetInterner roleSets) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer, roleSets);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Truncated realm mirror snapshot " + file, e);
+		}
+	}
+
+	private static Contents read(ByteBuffer buffer, RoleSetInterner roleSets) throws IOException {
+		if (buffer.limit() < Integer.BYTES + Long.BYTES) {
+			throw new IOException("Truncated realm mirror snapshot");
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().limit(buffer.limit() - Long.BYTES));
+		if (crc.getValue() != buffer.getLong(buffer.limit() - Long.BYTES)) {
+			throw new IOException("Realm mirror snapshot checksum mismatch");
+		}
+		buffer.limit(buffer.limit() - Long.BYTES);
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a realm mirror snapshot");
+		}
+
+		String source = readString(buffer);
+		Instant fullSyncAt = Instant.ofEpochMilli(buffer.getLong());
+		long eventWatermark = buffer.getLong();
+		// A role takes at least its length, a user its four string lengths and its role count
+		int roleCount = readCount(buffer, Integer.BYTES);
+		List<String> roles = new ArrayList<>(roleCount);
+		for (int i = 0; i < roleCount; i++) {
+			roles.add(readString(buffer));
+		}
+		int userCount = readCount(buffer, 5 * Integer.BYTES);
+		Map<String, UserSummary> usersById = new HashMap<>(userCount * 4 / 3 + 1);
+		for (int i = 0; i < userCount; i++) {
+			String id = readString(buffer);
+			String username = readString(buffer);
+			String email = readString(buffer);
+			String name = readString(buffer);
+			int userRoleCount = readCount(buffer, Integer.BYTES);
+			List<String> userRoles = new ArrayList<>(userRoleCount);
+			for (int r = 0; r < userRoleCount; r++) {
+				int role = buffer.getInt();
+				if (role < 0 || role >= roles.size()) {
+					throw new IOException("Corrupt realm mirror snapshot: role index " + role);
+				}
+				userRoles.add(roles.get(role));
+			}
+			if (id == null || username == null) {
+				throw new IOException("Corrupt realm mirror snapshot: user without id or username");
+			}
+			usersById.put(id, new UserSummary(username, email, name, roleSets.intern(userRoles)));
+		}
+		if (buffer.hasRemaining()) {
+			throw new IOException("Corrupt realm mirror snapshot: " + buffer.remaining() + " bytes after the users");
+		}
+		return new Contents(source, fullSyncAt, eventWatermark, usersById);
+	}
+
+	/**
+	 * Reads a count of items that take at least {@code minItemBytes} each.
+	 */
+	private static int readCount(ByteBuffer buffer, int minItemBytes) throws IOException {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / minItemBytes) {
+			throw new IOException("Corrupt realm mirror snapshot: count " + count + " with "
+					+ buffer.remaining() + " bytes left");
+		}
+		return count;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Corrupt realm mirror snapshot: string length " + length + " with "
+					+ buffer.remaining() + " bytes left");
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
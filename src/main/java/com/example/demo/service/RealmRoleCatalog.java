@@ -0,0 +1,82 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.keycloak.representations.idm.RoleRepresentation;
+
+/**
+ * In-memory catalog of the realm roles, keyed by role name.
+ *
+ * <p>Realm roles change rarely, so instead of fetching a {@link RoleRepresentation} from Keycloak
+ * for every role of every created user, the catalog loads all roles with a single
+ * {@link KeycloakAdminClient#listRealmRoles()} call and answers lookups from memory. It is loaded on first use, reloaded
+ * by {@link KeycloakAdminService} on a schedule, and reloaded when a lookup misses, at most once per
+ * {@code minRefreshInterval} so that requests for unknown roles cannot hammer Keycloak. Concurrent
+ * misses share one reload: a miss waiting for the lock uses the roles another one loaded meanwhile.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class RealmRoleCatalog {
+
+	private final KeycloakAdminClient adminClient;
+	private final Duration minRefreshInterval;
+
+	private volatile Map<String, RoleRepresentation> rolesByName;
+	private volatile Instant lastRefresh = Instant.EPOCH;
+
+	public RealmRoleCatalog(KeycloakAdminClient adminClient, Duration minRefreshInterval) {
+		this.adminClient = adminClient;
+		this.minRefreshInterval = minRefreshInterval;
+	}
+
+	/**
+	 * Looks up a realm role by name, reloading the catalog once if the role is not known yet.
+	 *
+	 * @param name the realm role name
+	 * @return the role, or {@code null} if Keycloak has no such role
+	 */
+	public RoleRepresentation get(String name) {
+		Instant seen = lastRefresh;
+		RoleRepresentation role = roles().get(name);
+		if (role == null && Instant.now().isAfter(seen.plus(minRefreshInterval))) {
+			role = refreshUnlessReloadedSince(seen).get(name);
+		}
+		return role;
+	}
+
+	/**
+	 * @return all realm roles
+	 */
+	public List<RoleRepresentation> list() {
+		return List.copyOf(roles().values());
+	}
+
+	/**
+	 * Reloads all realm roles from Keycloak.
+	 *
+	 * @return the reloaded roles keyed by name
+	 */
+	public synchronized Map<String, RoleRepresentation> refresh() {
+		Map<String, RoleRepresentation> loaded = new LinkedHashMap<>();
+		for (RoleRepresentation role : KeycloakExecution.join(adminClient.listRealmRoles())) {
+			loaded.put(role.getName(), role);
+		}
+		rolesByName = Map.copyOf(loaded);
+		lastRefresh = Instant.now();
+		return rolesByName;
+	}
+
+	private synchronized Map<String, RoleRepresentation> refreshUnlessReloadedSince(Instant seen) {
+		return lastRefresh.equals(seen) ? refresh() : rolesByName;
+	}
+
+	private Map<String, RoleRepresentation> roles() {
+		Map<String, RoleRepresentation> roles = rolesByName;
+		return roles != null ? roles : refreshUnlessReloadedSince(Instant.EPOCH);
+	}
+}
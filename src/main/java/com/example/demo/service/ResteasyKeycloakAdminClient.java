@@ -0,0 +1,264 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.keycloak.admin.client.Config;
+import org.keycloak.admin.client.CreatedResponseUtil;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RealmsResource;
+import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.configuration.KeycloakAdminPoolProperties;
+import com.example.demo.service.AdminTokenManager.AdminToken;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response; // ✅ correct for Spring Boot 3
+
+/**
+ * {@link KeycloakAdminClient} backed by the blocking RESTEasy {@code keycloak-admin-client}.
+ *
+ * <p>Each call runs on a {@link KeycloakExecution} fan-out thread and holds a {@link KeycloakCallGuard}
+ * slot only while it is actually talking to Keycloak. Calls made from inside a fan-out branch run
+ * inline instead, so a branch never waits on a pool it is itself occupying.
+ *
+ * <p>HTTP connections come from a dedicated Apache HttpClient pool sized by
+ * {@code keycloak.admin.pool.*}, so concurrent calls reuse kept-alive connections instead of
+ * queueing on RESTEasy's small default pool or opening a new connection each time. Idle and expired
+ * connections are evicted in the background. Pool usage is published as
+ * {@code httpcomponents.httpclient.pool.*} gauges tagged {@code httpclient=keycloak-admin}, and the
+ * time spent waiting to lease a connection as {@code keycloak.admin.pool.wait}.
+ *
+ * <p>The admin token is renewed ahead of expiry by an {@link AdminTokenManager}, which fetches it
+ * through a private {@link TokenManager}. Requests carry the token through their own bearer filter
+ * reading {@link AdminTokenManager#accessToken()} rather than through {@link Keycloak}'s filter, whose
+ * synchronized token lookup would make every call wait while a refresh is talking to Keycloak.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+@ConditionalOnProperty(name = "keycloak.admin.client", havingValue = "resteasy", matchIfMissing = true)
+public class ResteasyKeycloakAdminClient implements KeycloakAdminClient, DisposableBean {
+
+    private final Client client;
+    private final RealmResource realmResource;
+    private final KeycloakCallGuard callGuard;
+    private final KeycloakExecution execution;
+    private final AdminTokenManager tokenManager;
+
+    private volatile boolean tokenObtained;
+
+    public ResteasyKeycloakAdminClient(
+            @Value("${keycloak.server-url}") String serverUrl,
+            @Value("${keycloak.realm}") String realm,
+            @Value("${keycloak.admin.username}") String username,
+            @Value("${keycloak.admin.password}") String password,
+            @Value("${keycloak.admin.token.refresh-ahead:PT20S}") Duration tokenRefreshAhead,
+            KeycloakAdminPoolProperties poolProperties,
+            KeycloakCallGuard callGuard,
+            KeycloakExecution execution,
+            MeterRegistry meterRegistry
+    ) {
+        this.client = newPooledClient(poolProperties, meterRegistry);
+        this.callGuard = callGuard;
+        this.execution = execution;
+
+        // Only used to obtain tokens; requests read them from the token manager below
+        TokenManager keycloakTokens = new TokenManager(
+                new Config(serverUrl, "master", username, password, "admin-cli", null), client);
+        this.tokenManager = new AdminTokenManager(() -> fetchToken(keycloakTokens), tokenRefreshAhead, meterRegistry);
+
+        WebTarget target = client.target(serverUrl).register((ClientRequestFilter) request -> request.getHeaders()
+                .putSingle(HttpHeaders.AUTHORIZATION, "Bearer " + KeycloakExecution.join(tokenManager.accessToken())));
+        this.realmResource = Keycloak.getClientProvider().targetProxy(target, RealmsResource.class).realm(realm);
+    }
+
+    @Scheduled(fixedDelayString = "${keycloak.admin.token.check-interval:PT5S}")
+    public void refreshAdminToken() {
+        tokenManager.refreshIfExpiring();
+    }
+
+    @Override
+    public CompletableFuture<List<UserRepresentation>> listUsers(int first, int max) {
+        return call("users.list", () -> realmResource.users().list(first, max));
+    }
+
+    @Override
+    public CompletableFuture<UserRepresentation> getUser(String userId) {
+        return call("users.get", () -> realmResource.users().get(userId).toRepresentation());
+    }
+
+    @Override
+    public CompletableFuture<List<UserRepresentation>> searchUsersByUsername(String username) {
+        return call("users.search", () -> realmResource.users().search(username, true));
+    }
+
+    @Override
+    public CompletableFuture<String> createUser(UserRepresentation user) {
+        return call("users.create", () -> {
+            try (Response response = realmResource.users().create(user)) {
+                if (response.getStatus() != 201) {
+                    String body = response.readEntity(String.class);
+                    throw new WebApplicationException("User creation failed: " + body, response.getStatus());
+                }
+                // Get userId safely
+                return CreatedResponseUtil.getCreatedId(response);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<RoleRepresentation>> listRealmRoles() {
+        return call("roles.list", () -> realmResource.roles().list());
+    }
+
+    @Override
+    public CompletableFuture<List<UserRepresentation>> listRealmRoleMembers(String roleName, int first, int max) {
+        return call("roles.members", () -> realmResource.roles().get(roleName).getUserMembers(first, max));
+    }
+
+    @Override
+    public CompletableFuture<List<RoleRepresentation>> listUserRealmRoleMappings(String userId) {
+        return call("users.roles.list", () -> realmResource.users().get(userId).roles().realmLevel().listAll());
+    }
+
+    @Override
+    public CompletableFuture<Void> addRealmRoleMappings(String userId, List<RoleRepresentation> roles) {
+        return call("users.roles.add", () -> {
+            realmResource.users().get(userId).roles().realmLevel().add(roles);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeUser(String userId) {
+        return call("users.remove", () -> {
+            realmResource.users().get(userId).remove();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<AdminEventRepresentation>> listAdminEvents(String dateFrom, int first, int max) {
+        return call("events.admin", () -> realmResource.getAdminEvents(
+                null, null, null, null, null, null, dateFrom, null, first, max));
+    }
+
+    @Override
+    public void destroy() {
+        client.close();
+    }
+
+    private CompletableFuture<AdminToken> fetchToken(TokenManager keycloakTokens) {
+        // The first token comes from a password grant, later ones from the refresh token
+        AdminToken token = AdminToken.of(tokenObtained ? keycloakTokens.refreshToken() : keycloakTokens.grantToken());
+        tokenObtained = true;
+        return CompletableFuture.completedFuture(token);
+    }
+
+    private static Client newPooledClient(KeycloakAdminPoolProperties properties, MeterRegistry meterRegistry) {
+        Timer leaseWait = Timer.builder("keycloak.admin.pool.wait")
+                .description("Time spent waiting for a pooled connection to Keycloak")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(
+                properties.getTimeToLive().toMillis(), leaseWait);
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "keycloak-admin").bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        return ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                .httpEngine(new ApacheHttpClient43Engine(httpClient, true))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> call(String operation, Supplier<T> call) {
+        if (KeycloakExecution.inFanOut()) {
+            try {
+                return CompletableFuture.completedFuture(callGuard.call(operation, call));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return execution.fanOut(() -> callGuard.call(operation, call));
+    }
+
+    /**
+     * Records how long each connection lease waits for the pool.
+     */
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer leaseWait;
+
+        TimedConnectionManager(long timeToLiveMillis, Timer leaseWait) {
+            super(timeToLiveMillis, TimeUnit.MILLISECONDS);
+            this.leaseWait = leaseWait;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit unit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, unit);
+                    } finally {
+                        leaseWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Shares role lists between the {@link com.example.demo.bean.UserSummary} and
+ * {@link com.example.demo.bean.UserInfo} instances that carry them.
+ *
+ * <p>Most users of a realm have one of a handful of role combinations, yet every summary would
+ * otherwise hold its own list with its own copies of the role names. {@link #intern(List)} returns one
+ * canonical immutable list per distinct combination (order preserved), built from canonical name
+ * strings, so thousands of users share a few lists. Both the combinations and the names are held in
+ * caches bounded by {@code keycloak.roles.interned-sets} and {@code keycloak.roles.interned-names};
+ * once full, the least used entries are evicted and new lists are simply not shared with them.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class RoleSetInterner {
+
+	private final Cache<List<String>, List<String>> roleSets;
+	private final Cache<String, String> roleNames;
+
+	public RoleSetInterner(@Value("${keycloak.roles.interned-sets:10000}") long maxRoleSets,
+			@Value("${keycloak.roles.interned-names:1000}") long maxRoleNames) {
+		this.roleSets = Caffeine.newBuilder().maximumSize(maxRoleSets).build();
+		this.roleNames = Caffeine.newBuilder().maximumSize(maxRoleNames).build();
+	}
+
+	/**
+	 * @param roles role names, may be {@code null}
+	 * @return an immutable list equal to {@code roles}, shared with earlier lists of the same roles
+	 */
+	public List<String> intern(List<String> roles) {
+		if (roles == null || roles.isEmpty()) {
+			return List.of();
+		}
+		List<String> canonical = roleSets.getIfPresent(roles);
+		if (canonical != null) {
+			return canonical;
+		}
+		List<String> copy = List.copyOf(roles.stream()
+				.map(name -> roleNames.get(name, n -> n))
+				.toList());
+		return roleSets.get(copy, key -> key);
+	}
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+
+/**
+ * Log of changes to the realm's users, used to answer "what changed since" for the admin dashboard.
+ *
+ * <p>Changes made through this application are recorded from the user created/deleted events. Changes
+ * made directly in Keycloak are picked up by a periodic reconcile that compares the
+ * {@link UserDirectoryCache} with the last known state of every user. Every change and every
+ * {@link #mark()} gets a tick from one strictly increasing counter, so a client that sends back the
+ * tick of its last response sees each later change exactly once. A tick carries a random epoch of
+ * this instance in its high bits and the counter in its low bits; it is opaque to clients and only
+ * meaningful to the instance that issued it. Ticks stay within {@value #TICK_BITS} bits, so a client
+ * that parses one as a JavaScript number sends back the exact value.
+ *
+ * <p>The log keeps at most {@code admin.dashboard.change-log.max-entries} changes. A query reaching
+ * further back than the oldest retained change returns {@code null}, and the caller must fall back to
+ * a full listing. So does a tick issued by another instance or before a restart, or one that was
+ * never issued at all.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class UserChangeLog {
+
+	private static final Logger log = LoggerFactory.getLogger(UserChangeLog.class);
+
+	/** Bits of a tick; integers up to this size survive a round trip through a double. */
+	static final int TICK_BITS = 53;
+	/** Low bits of a tick holding the counter; the bits above them hold the epoch. */
+	static final int COUNTER_BITS = 31;
+	private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+	private final UserDirectoryCache userDirectoryCache;
+	private final int maxEntries;
+
+	private final Deque<UserChange> changes = new ArrayDeque<>();
+	private final Map<String, UserSummary> knownUsers = new HashMap<>();
+	private long epoch;
+	private long clock;
+	/** Changes at or before this tick may have been dropped. */
+	private long horizon;
+	private boolean reconciled;
+
+	public UserChangeLog(UserDirectoryCache userDirectoryCache,
+			@Value("${admin.dashboard.change-log.max-entries:10000}") int maxEntries) {
+		this.userDirectoryCache = userDirectoryCache;
+		this.maxEntries = maxEntries;
+		startEpoch();
+	}
+
+	/**
+	 * @return a tick later than every change recorded so far and earlier than every future one
+	 */
+	public synchronized long mark() {
+		return tick();
+	}
+
+	/**
+	 * Returns the latest state of every user changed after {@code since}.
+	 *
+	 * @param since a tick returned by {@link #mark()}
+	 * @return changed users keyed by normalized username, with {@code null} values for removed users,
+	 * or {@code null} if the log no longer covers {@code since} or did not issue it
+	 */
+	public synchronized Map<String, UserSummary> changesSince(long since) {
+		if ((since & ~COUNTER_MASK) != epoch || since < horizon || since > clock) {
+			return null;
+		}
+		Map<String, UserSummary> latest = new LinkedHashMap<>();
+		Iterator<UserChange> newestFirst = changes.descendingIterator();
+		while (newestFirst.hasNext()) {
+			UserChange change = newestFirst.next();
+			if (change.tick() <= since) {
+				break;
+			}
+			if (!latest.containsKey(change.username())) {
+				latest.put(change.username(), change.user());
+			}
+		}
+		return latest;
+	}
+
+	@EventListener
+	public synchronized void onUserCreated(UserCreatedEvent event) {
+		record(event.getUser().username(), event.getUser());
+	}
+
+	@EventListener
+	public synchronized void onUserDeleted(UserDeletedEvent event) {
+		record(event.getUsername(), null);
+	}
+
+	/**
+	 * Records the differences between the cached user directory and the last known state.
+	 */
+	@Scheduled(initialDelayString = "${admin.dashboard.reconcile-interval:PT1M}",
+			fixedDelayString = "${admin.dashboard.reconcile-interval:PT1M}")
+	public void reconcile() {
+		List<UserSummary> users;
+		try {
+			users = userDirectoryCache.getAllUsers();
+		} catch (RuntimeException e) {
+			log.warn("Could not reconcile the user change log: {}", e.getMessage());
+			return;
+		}
+		reconcile(users);
+	}
+
+	synchronized void reconcile(List<UserSummary> users) {
+		Map<String, UserSummary> current = new HashMap<>();
+		users.forEach(user -> current.put(normalize(user.username()), user));
+		if (!reconciled) {
+			// The first listing is the baseline; nothing before it was ever reported
+			current.forEach(knownUsers::putIfAbsent);
+			reconciled = true;
+			return;
+		}
+		current.forEach((username, user) -> {
+			if (!Objects.equals(knownUsers.get(username), user)) {
+				record(username, user);
+			}
+		});
+		for (String username : new ArrayList<>(knownUsers.keySet())) {
+			if (!current.containsKey(username)) {
+				record(username, null);
+			}
+		}
+	}
+
+	private void record(String username, UserSummary user) {
+		String key = normalize(username);
+		UserSummary previous = user == null ? knownUsers.remove(key) : knownUsers.put(key, user);
+		// Before the first reconcile the known state is incomplete, so removals are always recorded
+		if (Objects.equals(previous, user) && (user != null || reconciled)) {
+			return;
+		}
+		changes.addLast(new UserChange(tick(), key, user));
+		while (changes.size() > maxEntries) {
+			horizon = changes.removeFirst().tick();
+		}
+	}
+
+	private long tick() {
+		if ((clock & COUNTER_MASK) == COUNTER_MASK) {
+			// Counter exhausted: every tick issued so far now requires a full listing
+			startEpoch();
+		}
+		return ++clock;
+	}
+
+	private void startEpoch() {
+		long previous = epoch;
+		do {
+			epoch = ThreadLocalRandom.current().nextLong(1, 1L << (TICK_BITS - COUNTER_BITS)) << COUNTER_BITS;
+		} while (epoch == previous);
+		changes.clear();
+		clock = epoch;
+		horizon = ++clock;
+	}
+
+	private static String normalize(String username) {
+		return username.toLowerCase(Locale.ROOT);
+	}
+
+	private record UserChange(long tick, String username, UserSummary user) {
+	}
+}
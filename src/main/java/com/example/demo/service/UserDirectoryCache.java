@@ -0,0 +1,142 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.UserDirectoryCacheProperties;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of {@link UserSummary} snapshots in front of {@link KeycloakAdminService}.
+ *
+ * <p>Once the {@link RealmMirror} has completed its first sync, listings are answered from the mirror
+ * and the cache below only serves as a fallback until then, or when the mirror is disabled.
+ * Searches run against a {@link UserSearchIndex} of the current full directory, built once per
+ * directory snapshot by the first search after it changed; concurrent searches wait for that build
+ * instead of each building their own.
+ *
+ * <p>Holds the full user directory and individual pages as immutable lists. Entries are bounded in
+ * number, expire after a TTL and are refreshed in the background once they pass the refresh age, so
+ * readers keep getting the previous snapshot while Keycloak is queried.
+ *
+ * <p>User creation and deletion patch the cached directory directly through
+ * {@link UserCreatedEvent} and {@link UserDeletedEvent}; cached pages are invalidated because
+ * offsets shift. Hit, miss and eviction counts are published as {@code cache.*} meters with the
+ * tag {@code cache=user-directory}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class UserDirectoryCache {
+
+	private static final ViewKey ALL_USERS = new ViewKey(0, -1);
+
+	private final LoadingCache<ViewKey, List<UserSummary>> views;
+	private final RealmMirror realmMirror;
+	/** The index of the newest directory snapshot searched, possibly still being built. */
+	private final AtomicReference<IndexBuild> searchIndex = new AtomicReference<>();
+
+	public UserDirectoryCache(KeycloakAdminService keycloakAdminService, RealmMirror realmMirror,
+			UserDirectoryCacheProperties properties, MeterRegistry meterRegistry) {
+		this.realmMirror = realmMirror;
+		this.views = Caffeine.newBuilder()
+				.maximumSize(properties.getMaxEntries())
+				.expireAfterWrite(properties.getTtl())
+				.refreshAfterWrite(properties.getRefreshAfter())
+				.recordStats()
+				.build(key -> List.copyOf(key.isAll()
+						? keycloakAdminService.getAllUsers()
+						: keycloakAdminService.getUsers(key.first(), key.max())));
+		CaffeineCacheMetrics.monitor(meterRegistry, views, "user-directory");
+	}
+
+	public List<UserSummary> getAllUsers() {
+		if (realmMirror.isReady()) {
+			return realmMirror.users();
+		}
+		return views.get(ALL_USERS);
+	}
+
+	public List<UserSummary> getUsers(int first, int max) {
+		if (realmMirror.isReady()) {
+			return realmMirror.users(first, max);
+		}
+		return views.get(new ViewKey(first, max));
+	}
+
+	/**
+	 * Searches the full directory; see {@link UserSearchIndex#search}.
+	 */
+	public UserSearchIndex.Result search(String query, String role, UserSearchIndex.Sort sort, boolean descending,
+			int first, int max) {
+		return searchIndex(getAllUsers()).search(query, role, sort, descending, first, max);
+	}
+
+	private UserSearchIndex searchIndex(List<UserSummary> users) {
+		IndexBuild build = searchIndex.get();
+		while (build == null || build.users() != users) {
+			IndexBuild own = new IndexBuild(users, new CompletableFuture<>());
+			if (searchIndex.compareAndSet(build, own)) {
+				try {
+					own.index().complete(UserSearchIndex.of(users));
+				} catch (RuntimeException e) {
+					searchIndex.compareAndSet(own, null);
+					own.index().completeExceptionally(e);
+					throw e;
+				}
+				return own.index().join();
+			}
+			build = searchIndex.get();
+		}
+		return KeycloakExecution.join(build.index());
+	}
+
+	public void invalidateAll() {
+		views.invalidateAll();
+	}
+
+	@EventListener
+	public void onUserCreated(UserCreatedEvent event) {
+		invalidatePages();
+		views.asMap().computeIfPresent(ALL_USERS, (key, users) -> {
+			List<UserSummary> patched = new ArrayList<>(users.size() + 1);
+			patched.addAll(users);
+			patched.add(event.getUser());
+			return List.copyOf(patched);
+		});
+	}
+
+	@EventListener
+	public void onUserDeleted(UserDeletedEvent event) {
+		invalidatePages();
+		views.asMap().computeIfPresent(ALL_USERS, (key, users) -> users.stream()
+				.filter(user -> !event.getUsername().equalsIgnoreCase(user.username()))
+				.toList());
+	}
+
+	private void invalidatePages() {
+		views.asMap().keySet().removeIf(key -> !key.isAll());
+	}
+
+	private record IndexBuild(List<UserSummary> users, CompletableFuture<UserSearchIndex> index) {
+	}
+
+	private record ViewKey(int first, int max) {
+		boolean isAll() {
+			return max < 0;
+		}
+	}
+}
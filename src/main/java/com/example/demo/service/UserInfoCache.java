@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.bean.UserInfo;
+import com.example.demo.configuration.JsonWriters;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Serialized {@link UserInfo} payloads keyed by the identity of the caller's credentials.
+ *
+ * <p>The SPA polls {@code /api/user-info}; for an unchanged token or login session the payload never
+ * changes, so it is built and serialized once and then served as bytes together with an ETag. An
+ * entry lives until its credentials expire, capped at {@code user-info.cache.max-ttl}, and the cache
+ * is bounded by {@code user-info.cache.max-entries}. Statistics are published as {@code cache.*}
+ * meters with the tag {@code cache=user-info}.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class UserInfoCache {
+
+	private final Cache<String, CachedUserInfo> entries;
+	private final ObjectWriter writer;
+	private final Duration maxTtl;
+
+	public UserInfoCache(JsonWriters jsonWriters, MeterRegistry meterRegistry,
+			@Value("${user-info.cache.max-entries:10000}") long maxEntries,
+			@Value("${user-info.cache.max-ttl:PT5M}") Duration maxTtl) {
+		this.writer = jsonWriters.writerFor(UserInfo.class);
+		this.maxTtl = maxTtl;
+		this.entries = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(Expiry.creating((String key, CachedUserInfo entry) -> {
+					Duration ttl = Duration.between(Instant.now(), entry.expiresAt());
+					return ttl.isNegative() ? Duration.ZERO : ttl;
+				}))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, entries, "user-info");
+	}
+
+	/**
+	 * Returns the cached payload for {@code key}, building and serializing it on a miss.
+	 *
+	 * @param key       identity of the caller's credentials, e.g. a token key from {@code JwtCacheKeys} or a session id
+	 * @param expiresAt when the credentials expire, or {@code null} if unknown
+	 * @param userInfo  builds the payload on a miss
+	 */
+	public CachedUserInfo get(String key, Instant expiresAt, Supplier<UserInfo> userInfo) {
+		return entries.get(key, k -> serialize(userInfo.get(), expiresAt));
+	}
+
+	/**
+	 * Serializes a payload without caching it.
+	 */
+	public CachedUserInfo serialize(UserInfo userInfo, Instant expiresAt) {
+		Instant cap = Instant.now().plus(maxTtl);
+		byte[] body;
+		try {
+			body = writer.writeValueAsBytes(userInfo);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize user info", e);
+		}
+		return new CachedUserInfo(body, etag(body), expiresAt != null && expiresAt.isBefore(cap) ? expiresAt : cap);
+	}
+
+	private static String etag(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A serialized {@link UserInfo} and its ETag.
+	 */
+	public record CachedUserInfo(byte[] body, String etag, Instant expiresAt) {
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+/**
+ * Resolves realm role memberships for many users at once.
+ *
+ * <p>For the whole realm, {@link #resolveAll()} takes the realm roles from the {@link RealmRoleCatalog}
+ * and fetches the members of each role, then inverts the result into a {@code userId -> roles} index
+ * instead of asking Keycloak for the role mappings of every user. The number of remote calls therefore
+ * grows with the number of roles rather than the number of users, but the index covers every member
+ * of every role.
+ *
+ * <p>For a single page of users, {@link #resolve(List)} asks for the role mappings of just those
+ * users, so the cost of a page does not depend on the size of the realm.
+ *
+ * <p>Either way the individual listings are requested concurrently through the
+ * {@link KeycloakAdminClient}, while {@link KeycloakCallGuard} keeps the number of calls in flight
+ * toward Keycloak bounded.
+ *
+ * <p>Only direct realm role mappings are resolved, which matches what
+ * {@code users().get(id).roles().realmLevel().listAll()} returns for a single user.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public class UserRoleResolver {
+
+	/** Keycloak caps role member listings at 100 entries unless paged explicitly. */
+	static final int MEMBER_PAGE_SIZE = 100;
+
+	private final KeycloakAdminClient adminClient;
+	private final RealmRoleCatalog roleCatalog;
+
+	public UserRoleResolver(KeycloakAdminClient adminClient, RealmRoleCatalog roleCatalog) {
+		this.adminClient = adminClient;
+		this.roleCatalog = roleCatalog;
+	}
+
+	/**
+	 * Builds an index of realm role names keyed by user id.
+	 *
+	 * @return a map from Keycloak user id to the names of the realm roles directly assigned to that user
+	 */
+	public Map<String, List<String>> resolveAll() {
+		List<RoleRepresentation> roles = roleCatalog.list();
+		List<CompletableFuture<List<String>>> members = new ArrayList<>(roles.size());
+		for (RoleRepresentation role : roles) {
+			members.add(getMemberIds(role.getName(), 0, new ArrayList<>()));
+		}
+
+		Map<String, List<String>> rolesByUserId = new HashMap<>();
+		for (int i = 0; i < roles.size(); i++) {
+			String roleName = roles.get(i).getName();
+			for (String userId : KeycloakExecution.join(members.get(i))) {
+				rolesByUserId.computeIfAbsent(userId, id -> new ArrayList<>()).add(roleName);
+			}
+		}
+		return rolesByUserId;
+	}
+
+	/**
+	 * Builds an index of realm role names for the given users only, with one role mapping lookup per user.
+	 *
+	 * @return a map from Keycloak user id to the names of the realm roles directly assigned to that user
+	 */
+	public Map<String, List<String>> resolve(List<UserRepresentation> users) {
+		List<CompletableFuture<List<RoleRepresentation>>> mappings = new ArrayList<>(users.size());
+		for (UserRepresentation user : users) {
+			mappings.add(adminClient.listUserRealmRoleMappings(user.getId()));
+		}
+
+		Map<String, List<String>> rolesByUserId = new HashMap<>();
+		for (int i = 0; i < users.size(); i++) {
+			List<String> roleNames = KeycloakExecution.join(mappings.get(i)).stream()
+					.map(RoleRepresentation::getName)
+					.toList();
+			if (!roleNames.isEmpty()) {
+				rolesByUserId.put(users.get(i).getId(), roleNames);
+			}
+		}
+		return rolesByUserId;
+	}
+
+	/**
+	 * Returns the roles of the given user from a previously built index.
+	 *
+	 * @param index  the index returned by {@link #resolveAll()} or {@link #resolve(List)}
+	 * @param userId the Keycloak user id
+	 * @return the user's realm roles, or an empty list when the user has none
+	 */
+	public static List<String> rolesOf(Map<String, List<String>> index, String userId) {
+		return index.getOrDefault(userId, Collections.emptyList());
+	}
+
+	private CompletableFuture<List<String>> getMemberIds(String roleName, int first, List<String> memberIds) {
+		return adminClient.listRealmRoleMembers(roleName, first, MEMBER_PAGE_SIZE).thenCompose(page -> {
+			for (UserRepresentation member : page) {
+				memberIds.add(member.getId());
+			}
+			return page.size() == MEMBER_PAGE_SIZE
+					? getMemberIds(roleName, first + MEMBER_PAGE_SIZE, memberIds)
+					: CompletableFuture.completedFuture(memberIds);
+		});
+	}
+}
@@ -0,0 +1,264 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.example.demo.bean.UserSummary;
+
+/**
+ * Immutable search index over a list of {@link UserSummary}s, built once per user directory snapshot.
+ *
+ * <p>Three structures answer a query without looking at every user's fields:
+ * <ul>
+ *     <li>a sorted array of lower-cased terms (username, email and each word of the name) with the
+ *     position of their user, where a prefix search is a binary search followed by a scan of the
+ *     matching run</li>
+ *     <li>a posting list of user positions per realm role</li>
+ *     <li>the user positions pre-sorted by username, email and name, in both directions</li>
+ * </ul>
+ * Query words must each match the start of one of a user's terms, so {@code "ann sm"} finds
+ * "Anna Smith". Without criteria a page is a slice of the pre-sorted view. Otherwise matches are
+ * combined as bit sets: when they cover a fair share of the users, the page is cut from the view
+ * while walking it; when only a few users match, their positions in the view are looked up and sorted
+ * instead, so a selective query never walks all users.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public final class UserSearchIndex {
+
+	public enum Sort {
+		USERNAME(UserSummary::username),
+		EMAIL(UserSummary::email),
+		NAME(UserSummary::name);
+
+		private final Function<UserSummary, String> key;
+
+		Sort(Function<UserSummary, String> key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * One page of a search.
+	 *
+	 * @param total number of users matching the query across all pages
+	 * @param users the users of the requested page
+	 */
+	public record Result(int total, List<UserSummary> users) {
+	}
+
+	private static final int[] NO_USERS = new int[0];
+
+	/** Below one match per this many users, sorting the matches beats walking the whole sorted view. */
+	private static final int SPARSE_MATCH_RATIO = 32;
+
+	private final UserSummary[] users;
+	private final String[] terms;
+	private final int[] termUsers;
+	private final Map<String, int[]> usersByRole;
+	private final Map<Sort, int[]> ascending = new EnumMap<>(Sort.class);
+	private final Map<Sort, int[]> descending = new EnumMap<>(Sort.class);
+	private final Map<Sort, int[]> ascendingRanks = new EnumMap<>(Sort.class);
+	private final Map<Sort, int[]> descendingRanks = new EnumMap<>(Sort.class);
+
+	private UserSearchIndex(List<UserSummary> source) {
+		this.users = source.toArray(UserSummary[]::new);
+
+		List<Term> allTerms = new ArrayList<>(users.length * 4);
+		Map<String, List<Integer>> roleMembers = new HashMap<>();
+		for (int i = 0; i < users.length; i++) {
+			UserSummary user = users[i];
+			Set<String> userTerms = new HashSet<>();
+			addTerm(userTerms, user.username());
+			addTerm(userTerms, user.email());
+			if (user.name() != null) {
+				for (String word : user.name().split("\\s+")) {
+					addTerm(userTerms, word);
+				}
+			}
+			for (String term : userTerms) {
+				allTerms.add(new Term(term, i));
+			}
+			for (String role : user.roles()) {
+				roleMembers.computeIfAbsent(role, r -> new ArrayList<>()).add(i);
+			}
+		}
+		allTerms.sort(Comparator.comparing(Term::text).thenComparingInt(Term::user));
+		this.terms = new String[allTerms.size()];
+		this.termUsers = new int[allTerms.size()];
+		for (int t = 0; t < terms.length; t++) {
+			terms[t] = allTerms.get(t).text();
+			termUsers[t] = allTerms.get(t).user();
+		}
+
+		Map<String, int[]> postings = new HashMap<>();
+		roleMembers.forEach((role, members) -> postings.put(role, members.stream().mapToInt(Integer::intValue).toArray()));
+		this.usersByRole = Map.copyOf(postings);
+
+		for (Sort sort : Sort.values()) {
+			sortPositions(sort);
+		}
+	}
+
+	/**
+	 * Indexes the given users. The list must not change afterwards.
+	 */
+	public static UserSearchIndex of(List<UserSummary> users) {
+		return new UserSearchIndex(users);
+	}
+
+	/**
+	 * Returns one page of the users matching all given criteria.
+	 *
+	 * @param query      words that must each prefix-match a username, email or name word, case
+	 *                   insensitive; {@code null} or blank matches everyone
+	 * @param role       realm role the users must have, or {@code null}
+	 * @param sort       order of the results
+	 * @param descending whether to reverse the order
+	 * @param first      offset of the first result to return
+	 * @param max        maximum number of results to return
+	 */
+	public Result search(String query, String role, Sort sort, boolean descending, int first, int max) {
+		BitSet matches = null;
+		if (query != null && !query.isBlank()) {
+			for (String word : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+				BitSet wordMatches = prefixMatches(word);
+				if (matches == null) {
+					matches = wordMatches;
+				} else {
+					matches.and(wordMatches);
+				}
+			}
+		}
+		if (role != null && !role.isBlank()) {
+			BitSet roleMatches = new BitSet(users.length);
+			for (int user : usersByRole.getOrDefault(role, NO_USERS)) {
+				roleMatches.set(user);
+			}
+			if (matches == null) {
+				matches = roleMatches;
+			} else {
+				matches.and(roleMatches);
+			}
+		}
+
+		int[] order = (descending ? this.descending : ascending).get(sort);
+		int total = matches != null ? matches.cardinality() : users.length;
+		List<UserSummary> page = new ArrayList<>(Math.max(0, Math.min(max, total - first)));
+		if (matches == null) {
+			for (int k = first; k < total && page.size() < max; k++) {
+				page.add(users[order[k]]);
+			}
+			return new Result(total, List.copyOf(page));
+		}
+		if (total < users.length / SPARSE_MATCH_RATIO) {
+			int[] rank = (descending ? descendingRanks : ascendingRanks).get(sort);
+			int[] matchRanks = new int[total];
+			for (int user = matches.nextSetBit(0), m = 0; user >= 0; user = matches.nextSetBit(user + 1)) {
+				matchRanks[m++] = rank[user];
+			}
+			Arrays.sort(matchRanks);
+			for (int m = first; m < total && page.size() < max; m++) {
+				page.add(users[order[matchRanks[m]]]);
+			}
+			return new Result(total, List.copyOf(page));
+		}
+		int skipped = 0;
+		for (int k = 0; k < order.length && page.size() < max; k++) {
+			int user = order[k];
+			if (!matches.get(user)) {
+				continue;
+			}
+			if (skipped < first) {
+				skipped++;
+			} else {
+				page.add(users[user]);
+			}
+		}
+		return new Result(total, List.copyOf(page));
+	}
+
+	private BitSet prefixMatches(String prefix) {
+		BitSet matches = new BitSet(users.length);
+		// Both ends of the run are found by binary search so the scan only touches termUsers
+		int end = firstTermNotBefore(prefix + Character.MAX_VALUE);
+		for (int t = firstTermNotBefore(prefix); t < end; t++) {
+			matches.set(termUsers[t]);
+		}
+		return matches;
+	}
+
+	/**
+	 * Lower bound binary search; unlike {@link Arrays#binarySearch} it lands on the first of several
+	 * users sharing the same term.
+	 */
+	private int firstTermNotBefore(String prefix) {
+		int low = 0;
+		int high = terms.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (terms[mid].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void sortPositions(Sort sort) {
+		String[] keys = new String[users.length];
+		for (int i = 0; i < users.length; i++) {
+			String key = sort.key.apply(users[i]);
+			keys[i] = key != null ? key.toLowerCase(Locale.ROOT) : null;
+		}
+		// Ties in the order of the source list, users without a value last in both directions
+		int[] up = IntStream.range(0, users.length)
+				.boxed()
+				.sorted(Comparator.comparing((Integer i) -> keys[i], Comparator.nullsLast(Comparator.naturalOrder())))
+				.mapToInt(Integer::intValue)
+				.toArray();
+		int withValue = 0;
+		while (withValue < up.length && keys[up[withValue]] != null) {
+			withValue++;
+		}
+		int[] down = new int[up.length];
+		for (int k = 0; k < withValue; k++) {
+			down[k] = up[withValue - 1 - k];
+		}
+		System.arraycopy(up, withValue, down, withValue, up.length - withValue);
+		ascending.put(sort, up);
+		descending.put(sort, down);
+		ascendingRanks.put(sort, ranks(up));
+		descendingRanks.put(sort, ranks(down));
+	}
+
+	private static int[] ranks(int[] order) {
+		int[] ranks = new int[order.length];
+		for (int k = 0; k < order.length; k++) {
+			ranks[order[k]] = k;
+		}
+		return ranks;
+	}
+
+	private static void addTerm(Set<String> terms, String value) {
+		if (value != null && !value.isBlank()) {
+			terms.add(value.toLowerCase(Locale.ROOT));
+		}
+	}
+
+	private record Term(String text, int user) {
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+
+/**
+ * Maps usernames to Keycloak user ids.
+ *
+ * <p>Filled by {@link KeycloakAdminService} from user listings and exact-match searches, and kept up
+ * to date by the user created/deleted events and the {@link RealmMirror}, whose full syncs
+ * {@linkplain #reset(Map) reset} it to the usernames that actually exist. Keycloak stores usernames
+ * in lower case, so keys are normalized the same way. Entries can go stale when users are changed
+ * outside this application; callers must treat a hit as a hint and fall back to an exact search
+ * when Keycloak no longer knows the id.
+ *
+ * @author Amar Pattanshetti
+ */
+
+@Component
+public class UsernameIndex {
+
+	private final Map<String, String> userIdsByUsername = new ConcurrentHashMap<>();
+
+	public String get(String username) {
+		return userIdsByUsername.get(normalize(username));
+	}
+
+	public void put(String username, String userId) {
+		if (username != null && userId != null) {
+			userIdsByUsername.put(normalize(username), userId);
+		}
+	}
+
+	public void remove(String username) {
+		userIdsByUsername.remove(normalize(username));
+	}
+
+	/**
+	 * Replaces the index with a complete listing of the realm, dropping usernames that no longer exist.
+	 *
+	 * @param userIdsByUsername user ids keyed by lower-case username
+	 */
+	public void reset(Map<String, String> userIdsByUsername) {
+		this.userIdsByUsername.putAll(userIdsByUsername);
+		this.userIdsByUsername.keySet().retainAll(userIdsByUsername.keySet());
+	}
+
+	@EventListener
+	public void onUserCreated(UserCreatedEvent event) {
+		put(event.getUser().username(), event.getUserId());
+	}
+
+	@EventListener
+	public void onUserDeleted(UserDeletedEvent event) {
+		remove(event.getUsername());
+	}
+
+	private static String normalize(String username) {
+		return username.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,197 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.configuration.RealmMirrorProperties;
+import com.example.demo.service.KeycloakAdminClient;
+import com.example.demo.service.RealmMirror;
+import com.example.demo.service.RoleSetInterner;
+import com.example.demo.service.UsernameIndex;
+import com.example.demo.support.FakeKeycloak;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Drives the API end to end against {@link FakeKeycloak}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "realm-mirror.snapshot-file=target/realm-mirror-test.bin")
+class ApiIntegrationTests {
+
+	private static final FakeKeycloak keycloak = FakeKeycloak.shared();
+	private static final HttpClient http = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private RealmMirror realmMirror;
+
+	@Autowired
+	private KeycloakAdminClient adminClient;
+
+	@Autowired
+	private RealmMirrorProperties realmMirrorProperties;
+
+	@Autowired
+	private RoleSetInterner roleSets;
+
+	@DynamicPropertySource
+	static void keycloak(DynamicPropertyRegistry registry) {
+		keycloak.registerProperties(registry);
+	}
+
+	@BeforeAll
+	static void seedUsers() {
+		keycloak.addUser("integration.admin", "integration.admin@example.com", "Integration", "admin", "user");
+	}
+
+	@Test
+	void publicHelloIsCacheable() throws Exception {
+		HttpResponse<String> response = get("/api/public/hello", null, null);
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.body()).startsWith("{\"message\":\"Hello Public world\",\"timestamp\":");
+		String etag = response.headers().firstValue("ETag").orElseThrow();
+		assertThat(response.headers().firstValue("Cache-Control").orElseThrow()).contains("public");
+
+		assertThat(get("/api/public/hello", null, etag).statusCode()).isEqualTo(304);
+	}
+
+	@Test
+	void userInfoIsServedFromTokenAndRevalidated() throws Exception {
+		String token = keycloak.accessToken("integration.user", "user");
+
+		HttpResponse<String> response = get("/api/user-info", token, null);
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.body()).contains("\"username\":\"integration.user\"").contains("ROLE_USER");
+		String etag = response.headers().firstValue("ETag").orElseThrow();
+
+		assertThat(get("/api/user-info", token, etag).statusCode()).isEqualTo(304);
+		assertThat(get("/api/hello", token, null).body()).contains("Hello, integration.user!");
+	}
+
+	@Test
+	void adminEndpointsRequireAdminRole() throws Exception {
+		assertThat(get("/api/admin/users", keycloak.accessToken("integration.user", "user"), null).statusCode())
+				.isEqualTo(403);
+
+		HttpResponse<String> response = get("/api/admin/users", keycloak.accessToken("integration.admin", "admin"), null);
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.body()).contains("\"username\":\"integration.admin\"");
+	}
+
+	@Test
+	void streamedUsersCarryTheirRoles() throws Exception {
+		String token = keycloak.accessToken("integration.admin", "admin");
+
+		HttpResponse<String> response = get("/api/admin/users/stream?pageSize=1", token, null);
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.body().lines())
+				.anySatisfy(line -> assertThat(line).contains("\"username\":\"integration.admin\"")
+						.contains("\"admin\"").contains("\"user\""));
+	}
+
+	@Test
+	void createAndDeleteUser() throws Exception {
+		String token = keycloak.accessToken("integration.admin", "admin");
+		int before = keycloak.userCount();
+
+		HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/api/admin/users"))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("""
+						{"username":"created.user","email":"created.user@example.com","name":"Created",
+						 "password":"secret","roles":["user"]}""")));
+		assertThat(created.statusCode()).isEqualTo(200);
+		assertThat(keycloak.userCount()).isEqualTo(before + 1);
+
+		HttpResponse<String> deleted = send(HttpRequest.newBuilder(uri("/api/admin/users/created.user"))
+				.header("Authorization", "Bearer " + token)
+				.DELETE());
+		assertThat(deleted.statusCode()).isEqualTo(200);
+		assertThat(keycloak.userCount()).isEqualTo(before);
+	}
+
+	@Test
+	void outsideChangesReachTheMirror() throws Exception {
+		String token = keycloak.accessToken("integration.admin", "admin");
+		realmMirror.sync();
+
+		keycloak.addUser("outside.user", "outside.user@example.com", "Outside", "user");
+		realmMirror.sync();
+		assertThat(get("/api/admin/users", token, null).body()).contains("\"username\":\"outside.user\"");
+
+		keycloak.removeUser("outside.user");
+		realmMirror.sync();
+		assertThat(get("/api/admin/users", token, null).body()).doesNotContain("outside.user");
+	}
+
+	@Test
+	void restartedMirrorServesSnapshotFile(@Value("${keycloak.server-url}") String serverUrl) {
+		realmMirror.sync();
+		realmMirror.saveSnapshotFile();
+
+		RealmMirror restarted = new RealmMirror(adminClient, new UsernameIndex(), roleSets, realmMirrorProperties,
+				new SimpleMeterRegistry(), serverUrl, FakeKeycloak.REALM);
+		assertThat(restarted.isReady()).isTrue();
+		assertThat(restarted.users()).isEqualTo(realmMirror.users());
+		assertThat(restarted.userId("integration.admin")).isEqualTo(realmMirror.userId("integration.admin"));
+	}
+
+	@Test
+	void searchFiltersSortsAndPagesUsers() throws Exception {
+		keycloak.addUser("search.anna", "anna.smith@example.com", "Anna Smith", "user");
+		keycloak.addUser("search.bob", "bob@example.com", "Bob Smithers", "user", "admin");
+		keycloak.addUser("search.carl", "carl@example.com", "Carl Jones", "user");
+		realmMirror.sync();
+		String token = keycloak.accessToken("integration.admin", "admin");
+
+		HttpResponse<String> smiths = get("/api/admin/users?q=SMITH&sort=-username&size=1", token, null);
+		assertThat(smiths.statusCode()).isEqualTo(200);
+		assertThat(smiths.headers().firstValue("X-Total-Count")).hasValue("2");
+		assertThat(smiths.body()).contains("\"username\":\"search.bob\"").doesNotContain("search.anna");
+
+		HttpResponse<String> secondPage = get("/api/admin/users?q=smith&sort=-username&size=1&page=1", token, null);
+		assertThat(secondPage.body()).contains("\"username\":\"search.anna\"");
+
+		HttpResponse<String> admins = get("/api/admin/users?q=search&role=admin", token, null);
+		assertThat(admins.headers().firstValue("X-Total-Count")).hasValue("1");
+		assertThat(admins.body()).contains("search.bob");
+
+		assertThat(get("/api/admin/users?sort=age", token, null).statusCode()).isEqualTo(400);
+	}
+
+	private HttpResponse<String> get(String path, String token, String ifNoneMatch) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		if (ifNoneMatch != null) {
+			request.header("If-None-Match", ifNoneMatch);
+		}
+		return send(request);
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
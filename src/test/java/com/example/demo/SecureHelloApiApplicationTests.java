@@ -2,10 +2,19 @@ package com.example.demo;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.support.FakeKeycloak;
 
 @SpringBootTest
 class SecureHelloApiApplicationTests {
 
+	@DynamicPropertySource
+	static void keycloak(DynamicPropertyRegistry registry) {
+		FakeKeycloak.shared().registerProperties(registry);
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,114 @@
+package com.example.demo.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Throttling of the on-demand key set fetches of {@link JwkSetManager}.
+ */
+class JwkSetManagerTests {
+
+	private final AtomicInteger fetches = new AtomicInteger();
+	private volatile JWKSet published;
+	private HttpServer server;
+	private URL jwkSetUrl;
+
+	@BeforeEach
+	void startServer() throws IOException, JOSEException {
+		published = new JWKSet(rsaKey("k1"));
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/certs", exchange -> {
+			fetches.incrementAndGet();
+			byte[] body = published.toString(true).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		jwkSetUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/certs");
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void unknownKeyIdIsFetchedOncePerInterval() throws Exception {
+		JwkSetManager manager = manager(Duration.ofHours(1), Duration.ZERO);
+		manager.refresh();
+
+		assertThat(select(manager, "forged")).isEmpty();
+		assertThat(select(manager, "forged")).isEmpty();
+		assertThat(fetches).hasValue(2);
+	}
+
+	@Test
+	void scheduledRefreshDoesNotDelayRotatedKey() throws Exception {
+		JwkSetManager manager = manager(Duration.ofHours(1), Duration.ofHours(1));
+		manager.scheduledRefresh();
+
+		published = new JWKSet(List.of(rsaKey("k1"), rsaKey("k2")));
+		assertThat(select(manager, "k2")).hasSize(1);
+		assertThat(fetches).hasValue(2);
+	}
+
+	@Test
+	void forgedKeyIdDoesNotBlockRotatedKey() throws Exception {
+		JwkSetManager manager = manager(Duration.ofHours(1), Duration.ZERO);
+		manager.refresh();
+		assertThat(select(manager, "forged")).isEmpty();
+		assertThat(select(manager, "forged")).isEmpty();
+
+		published = new JWKSet(List.of(rsaKey("k1"), rsaKey("k2")));
+		assertThat(select(manager, "k2")).hasSize(1);
+		assertThat(fetches).hasValue(3);
+	}
+
+	@Test
+	void onDemandFetchesAreSpacedAcrossKeyIds() throws Exception {
+		JwkSetManager manager = manager(Duration.ofHours(1), Duration.ofHours(1));
+		manager.refresh();
+
+		assertThat(select(manager, "forged-1")).isEmpty();
+		assertThat(select(manager, "forged-2")).isEmpty();
+		assertThat(fetches).hasValue(2);
+	}
+
+	private JwkSetManager manager(Duration minRefetchInterval, Duration onDemandSpacing) {
+		return new JwkSetManager(jwkSetUrl, Duration.ofSeconds(2), Duration.ofSeconds(2), minRefetchInterval,
+				onDemandSpacing);
+	}
+
+	private static List<JWK> select(JwkSetManager manager, String kid) throws Exception {
+		return manager.get(new JWKSelector(new JWKMatcher.Builder().keyID(kid).build()), null);
+	}
+
+	private static RSAKey rsaKey(String kid) throws JOSEException {
+		return new RSAKeyGenerator(2048).keyID(kid).generate();
+	}
+}
@@ -0,0 +1,181 @@
+package com.example.demo.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.support.FakeKeycloak;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Closed-loop load test of the main API paths against {@link FakeKeycloak}.
+ *
+ * <p>Each scenario runs {@code load.concurrency} clients that send requests back to back, first for
+ * {@code load.warmup} and then for {@code load.duration}, and reports throughput and the p50, p99 and
+ * p99.9 latencies of the measured phase. {@code load.users} users are seeded into the fake realm and
+ * every fake Keycloak response is delayed by {@code load.idp-latency}. The results are printed and
+ * written to {@code target/load-test-report.json}.
+ *
+ * <p>Tagged {@code load} and excluded from the regular build; run with {@code mvn -Pload-test test}
+ * and override the settings as system properties, e.g. {@code -Dload.duration=PT60S}.
+ */
+@Tag("load")
+// Per-request DEBUG logging from application.properties would dominate the measurement
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "logging.level.org.springframework.security=INFO")
+class ApiLoadTest {
+
+	private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT3S"));
+	private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT10S"));
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+	private static final int USERS = Integer.getInteger("load.users", 1000);
+	private static final Duration IDP_LATENCY = Duration.parse(System.getProperty("load.idp-latency", "PT0.002S"));
+
+	private static final FakeKeycloak keycloak = FakeKeycloak.shared();
+	private static final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private static final Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+
+	@LocalServerPort
+	private int port;
+
+	@DynamicPropertySource
+	static void keycloak(DynamicPropertyRegistry registry) {
+		keycloak.registerProperties(registry);
+	}
+
+	@BeforeAll
+	static void seedRealm() {
+		for (int i = keycloak.userCount(); i < USERS; i++) {
+			keycloak.addUser("load.user" + i, "load.user" + i + "@example.com", "Load " + i,
+					i % 20 == 0 ? new String[] { "user", "admin" } : new String[] { "user" });
+		}
+		keycloak.setLatency(IDP_LATENCY);
+	}
+
+	@AfterAll
+	static void writeReport() throws IOException {
+		keycloak.setLatency(Duration.ZERO);
+		System.out.printf("%n%-12s %10s %8s %12s %10s %10s %10s %10s%n",
+				"scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+		results.forEach((name, result) -> System.out.printf("%-12s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+				name, result.get("requests"), result.get("errors"), result.get("throughput"),
+				result.get("p50Ms"), result.get("p99Ms"), result.get("p999Ms"), result.get("maxMs")));
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("concurrency", CONCURRENCY);
+		report.put("durationSeconds", DURATION.toSeconds());
+		report.put("users", USERS);
+		report.put("idpLatencyMs", IDP_LATENCY.toMillis());
+		report.put("scenarios", results);
+		Path path = Path.of("target", "load-test-report.json");
+		Files.createDirectories(path.getParent());
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+	}
+
+	@Test
+	void hello() throws Exception {
+		run("hello", "/api/hello", keycloak.accessToken("load.user1", "user"));
+	}
+
+	@Test
+	void userInfo() throws Exception {
+		run("user-info", "/api/user-info", keycloak.accessToken("load.user1", "user"));
+	}
+
+	@Test
+	void adminUsers() throws Exception {
+		run("admin-users", "/api/admin/users", keycloak.accessToken("load.user0", "admin"));
+	}
+
+	private void run(String scenario, String path, String token) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Authorization", "Bearer " + token)
+				.GET()
+				.build();
+
+		drive(request, WARMUP, new Recorder(3), new AtomicLong());
+
+		Recorder recorder = new Recorder(3);
+		AtomicLong errors = new AtomicLong();
+		long start = System.nanoTime();
+		drive(request, DURATION, recorder, errors);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Histogram histogram = recorder.getIntervalHistogram();
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("requests", histogram.getTotalCount());
+		result.put("errors", errors.get());
+		result.put("throughput", histogram.getTotalCount() / seconds);
+		result.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+		result.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+		result.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+		result.put("maxMs", millis(histogram.getMaxValue()));
+		results.put(scenario, result);
+
+		assertThat(errors.get()).as("failed requests in %s", scenario).isZero();
+	}
+
+	private static void drive(HttpRequest request, Duration duration, Recorder recorder, AtomicLong errors)
+			throws Exception {
+		long deadline = System.nanoTime() + duration.toNanos();
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+		try {
+			List<Future<?>> running = new ArrayList<>();
+			for (int i = 0; i < CONCURRENCY; i++) {
+				running.add(clients.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						long start = System.nanoTime();
+						try {
+							HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+							if (response.statusCode() != 200) {
+								errors.incrementAndGet();
+							}
+						} catch (IOException e) {
+							errors.incrementAndGet();
+						}
+						recorder.recordValue(System.nanoTime() - start);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> client : running) {
+				client.get();
+			}
+		} finally {
+			clients.shutdownNow();
+			clients.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.AdminTokenManager.AdminToken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Refreshes of {@link AdminTokenManager} with a fetcher that blocks, as the RESTEasy client's does.
+ */
+class AdminTokenManagerTests {
+
+	private final AtomicInteger fetches = new AtomicInteger();
+	private final CountDownLatch fetching = new CountDownLatch(1);
+	private final CountDownLatch releaseFetch = new CountDownLatch(1);
+
+	@Test
+	void callersKeepTheValidTokenWhileAProactiveRefreshBlocks() throws InterruptedException {
+		AdminTokenManager manager = new AdminTokenManager(() -> {
+			if (fetches.incrementAndGet() == 1) {
+				// Valid past the expiry margin, but within the refresh-ahead window
+				return CompletableFuture.completedFuture(token("first", Duration.ofSeconds(10)));
+			}
+			return CompletableFuture.completedFuture(blockingFetch("second"));
+		}, Duration.ofSeconds(20), new SimpleMeterRegistry());
+		assertThat(manager.accessToken().join()).isEqualTo("first");
+
+		Thread scheduler = new Thread(manager::refreshIfExpiring);
+		scheduler.start();
+		assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertTimeoutPreemptively(Duration.ofSeconds(1),
+				() -> assertThat(manager.accessToken()).isCompletedWithValue("first"));
+		// A second scheduled check does not start another fetch while one is in flight
+		assertTimeoutPreemptively(Duration.ofSeconds(1), manager::refreshIfExpiring);
+
+		releaseFetch.countDown();
+		scheduler.join(5000);
+		assertThat(manager.accessToken()).isCompletedWithValue("second");
+		assertThat(fetches).hasValue(2);
+	}
+
+	@Test
+	void callersWithoutATokenShareOneFetch() throws InterruptedException {
+		AdminTokenManager manager = new AdminTokenManager(() -> {
+			fetches.incrementAndGet();
+			return CompletableFuture.completedFuture(blockingFetch("only"));
+		}, Duration.ofSeconds(20), new SimpleMeterRegistry());
+
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> manager.accessToken().join());
+		assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<String> second = manager.accessToken();
+		assertThat(second).isNotDone();
+
+		releaseFetch.countDown();
+		assertThat(first.join()).isEqualTo("only");
+		assertThat(second.join()).isEqualTo("only");
+		assertThat(fetches).hasValue(1);
+	}
+
+	private AdminToken blockingFetch(String value) {
+		fetching.countDown();
+		try {
+			releaseFetch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return token(value, Duration.ofMinutes(5));
+	}
+
+	private static AdminToken token(String value, Duration validity) {
+		return new AdminToken(value, Instant.now().plus(validity));
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.bean.BulkUserResult;
+import com.example.demo.bean.CreateUserRequest;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per-item failures of {@link BulkUserProvisioner}.
+ */
+class BulkUserProvisionerTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final KeycloakAdminService adminService = mock(KeycloakAdminService.class);
+	private final BulkUserProvisioner provisioner = new BulkUserProvisioner(adminService, 4);
+
+	@BeforeEach
+	void setUp() {
+		when(adminService.createUserAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@Test
+	void failingAndMalformedItemsDoNotAbortTheBatch() throws IOException {
+		when(adminService.createUserAsync(argThat(request -> request != null && "taken".equals(request.getUsername()))))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("User exists with same username")));
+
+		List<BulkUserResult> results = provision("""
+				[{"username":"first"}, null, {"username":"typo","roles":5}, {"username":"taken"},
+				 {"username":"last","unknown":true}, {"username":"after"}]""");
+
+		assertThat(results).extracting(BulkUserResult::index).containsExactly(0, 1, 2, 3, 4, 5);
+		assertThat(results).extracting(BulkUserResult::success).containsExactly(true, false, false, false, false, true);
+		assertThat(results.get(3).message()).isEqualTo("User exists with same username");
+		assertThat(results.get(2).username()).isNull();
+	}
+
+	@Test
+	void unreadableInputEndsTheBatchAfterReportingIt() throws IOException {
+		List<BulkUserResult> results = provision("""
+				{"username":"first"}
+				{"username": }
+				{"username":"never"}
+				""");
+
+		// The broken item fails, then the reader cannot find where the next one starts
+		assertThat(results).extracting(BulkUserResult::success).containsExactly(true, false, false);
+		verify(adminService, never()).createUserAsync(argThat(request -> "never".equals(request.getUsername())));
+	}
+
+	@Test
+	void waitsForCreationsInFlightBeforeRethrowing() throws IOException {
+		CountDownLatch slowCreation = new CountDownLatch(1);
+		AtomicInteger finished = new AtomicInteger();
+		when(adminService.createUserAsync(any())).thenReturn(CompletableFuture.runAsync(() -> {
+			try {
+				slowCreation.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finished.incrementAndGet();
+		}));
+
+		MappingIterator<CreateUserRequest> requests = objectMapper.readerFor(CreateUserRequest.class)
+				.readValues("[{\"username\":\"slow\"}, null]");
+		assertThatThrownBy(() -> provisioner.provision(requests, result -> {
+			if (!result.success()) {
+				slowCreation.countDown();
+				throw new UncheckedIOException(new IOException("Client went away"));
+			}
+		})).isInstanceOf(UncheckedIOException.class);
+		assertThat(finished).hasValue(1);
+	}
+
+	@Test
+	void rejectsParallelismThatWouldNeverAdmitACreation() {
+		assertThatThrownBy(() -> new BulkUserProvisioner(adminService, 0))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("keycloak.admin.bulk.parallelism");
+	}
+
+	private List<BulkUserResult> provision(String json) throws IOException {
+		List<BulkUserResult> results = new ArrayList<>();
+		MappingIterator<CreateUserRequest> requests = objectMapper.readerFor(CreateUserRequest.class).readValues(json);
+		provisioner.provision(requests, results::add);
+		results.sort(Comparator.comparingInt(BulkUserResult::index));
+		return results;
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.demo.configuration.KeycloakResilienceProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Deletes by username through {@link KeycloakAdminService}.
+ */
+class KeycloakAdminServiceTests {
+
+	private final KeycloakAdminClient adminClient = mock(KeycloakAdminClient.class);
+	private final UsernameIndex usernameIndex = new UsernameIndex();
+	private final RealmMirror realmMirror = mock(RealmMirror.class);
+	private KeycloakAdminService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new KeycloakAdminService(adminClient, Duration.ofSeconds(30), usernameIndex, realmMirror,
+				new RoleSetInterner(100, 100),
+				new KeycloakReadCoalescer(new KeycloakResilienceProperties(), new SimpleMeterRegistry()),
+				mock(ApplicationEventPublisher.class));
+		when(adminClient.removeUser(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@Test
+	void deletesIndexedUserAfterCheckingItsName() {
+		usernameIndex.put("alice", "id-alice");
+		when(adminClient.getUser("id-alice")).thenReturn(CompletableFuture.completedFuture(user("id-alice", "alice")));
+
+		service.deleteUser("Alice");
+
+		verify(adminClient).removeUser("id-alice");
+		verify(adminClient, never()).searchUsersByUsername(anyString());
+	}
+
+	@Test
+	void staleIndexEntryOfRenamedUserIsNotDeleted() {
+		// alice was renamed to carol outside the application, and a new alice was created since
+		usernameIndex.put("alice", "id-carol");
+		when(adminClient.getUser("id-carol")).thenReturn(CompletableFuture.completedFuture(user("id-carol", "carol")));
+		when(adminClient.searchUsersByUsername("alice"))
+				.thenReturn(CompletableFuture.completedFuture(List.of(user("id-alice", "alice"))));
+
+		service.deleteUser("alice");
+
+		verify(adminClient, never()).removeUser("id-carol");
+		verify(adminClient).removeUser("id-alice");
+	}
+
+	@Test
+	void staleIndexEntryOfRemovedUserFallsBackToSearch() {
+		usernameIndex.put("alice", "id-gone");
+		when(adminClient.getUser("id-gone")).thenReturn(CompletableFuture.failedFuture(new NotFoundException()));
+		when(adminClient.searchUsersByUsername("alice")).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+		service.deleteUser("alice");
+
+		verify(adminClient, never()).removeUser(anyString());
+	}
+
+	@Test
+	void readyMirrorSuppliesTheIdInsteadOfTheIndex() {
+		usernameIndex.put("alice", "id-stale");
+		when(realmMirror.isReady()).thenReturn(true);
+		when(realmMirror.userId("alice")).thenReturn("id-alice");
+		when(adminClient.getUser("id-alice")).thenReturn(CompletableFuture.completedFuture(user("id-alice", "alice")));
+
+		service.deleteUser("alice");
+
+		verify(adminClient).removeUser("id-alice");
+		verify(adminClient, never()).getUser("id-stale");
+	}
+
+	private static UserRepresentation user(String id, String username) {
+		UserRepresentation user = new UserRepresentation();
+		user.setId(id);
+		user.setUsername(username);
+		return user;
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.configuration.KeycloakExecutionProperties;
+import com.example.demo.configuration.KeycloakResilienceProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Admission of {@link KeycloakCallGuard}'s bulkhead for non-blocking calls.
+ */
+class KeycloakCallGuardTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void asyncCallsQueueWithoutBlockingAndStartWhenASlotFrees() {
+		KeycloakCallGuard guard = guard(Duration.ofSeconds(10));
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		CompletableFuture<String> first = guard.callAsync("users.list", () -> pending);
+		AtomicInteger started = new AtomicInteger();
+
+		CompletableFuture<String> second = assertTimeoutPreemptively(Duration.ofSeconds(1),
+				() -> guard.callAsync("users.list", () -> {
+					started.incrementAndGet();
+					return CompletableFuture.completedFuture("second");
+				}));
+		assertThat(second).isNotDone();
+		assertThat(started).hasValue(0);
+		assertThat(meterRegistry.get("keycloak.admin.bulkhead.waiting").gauge().value()).isEqualTo(1);
+
+		pending.complete("first");
+		assertThat(first.join()).isEqualTo("first");
+		assertThat(second).isCompletedWithValue("second");
+		assertThat(started).hasValue(1);
+		assertThat(meterRegistry.get("keycloak.admin.bulkhead.waiting").gauge().value()).isZero();
+		assertThat(meterRegistry.get("keycloak.admin.bulkhead.available").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void queuedAsyncCallsFailWhenNoSlotFreesInTime() {
+		KeycloakCallGuard guard = guard(Duration.ofMillis(50));
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		guard.callAsync("users.list", () -> pending);
+
+		CompletableFuture<String> second = guard.callAsync("users.list",
+				() -> CompletableFuture.completedFuture("second"));
+		assertThatThrownBy(second::join)
+				.isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(KeycloakUnavailableException.class)
+				.hasMessageContaining("Too many concurrent calls");
+		assertThat(meterRegistry.get("keycloak.admin.calls.wait").tag("outcome", "rejected").timer().count())
+				.isEqualTo(1);
+
+		// The timed-out call is no longer queued, so the freed slot is available again
+		pending.complete("first");
+		assertThat(guard.call("users.list", () -> "third")).isEqualTo("third");
+	}
+
+	private KeycloakCallGuard guard(Duration acquireTimeout) {
+		KeycloakExecutionProperties properties = new KeycloakExecutionProperties();
+		properties.setMaxConcurrentCalls(1);
+		properties.setAcquireTimeout(acquireTimeout);
+		return new KeycloakCallGuard(properties,
+				new KeycloakCircuitBreaker(new KeycloakResilienceProperties(), meterRegistry), meterRegistry);
+	}
+}
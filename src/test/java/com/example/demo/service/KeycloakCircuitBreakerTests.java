@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.configuration.KeycloakExecutionProperties;
+import com.example.demo.configuration.KeycloakResilienceProperties;
+import com.example.demo.service.KeycloakCircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * State transitions of {@link KeycloakCircuitBreaker}, alone and behind the {@link KeycloakCallGuard}
+ * bulkhead.
+ */
+class KeycloakCircuitBreakerTests {
+
+	private static final RuntimeException FAILURE = new KeycloakUnavailableException("Connection refused");
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void opensOnlyOnceTheMinimumCallsAreRecorded() {
+		KeycloakCircuitBreaker breaker = breaker(10, 5, Duration.ofMinutes(1), 1);
+		for (int i = 0; i < 4; i++) {
+			breaker.onResult(FAILURE);
+		}
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+		breaker.onResult(FAILURE);
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		assertThatThrownBy(breaker::acquirePermission).isInstanceOf(KeycloakUnavailableException.class);
+		assertThat(meterRegistry.get("keycloak.admin.circuit.not-permitted").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("keycloak.admin.circuit.transitions").tag("from", "closed").tag("to", "open")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void failureRateCoversOnlyTheSlidingWindow() {
+		KeycloakCircuitBreaker breaker = breaker(4, 4, Duration.ofMinutes(1), 1);
+		breaker.onResult(FAILURE);
+		breaker.onResult(null);
+		breaker.onResult(new NotFoundException());
+		breaker.onResult(null);
+		// Pushes the first failure out of the window
+		breaker.onResult(null);
+		breaker.onResult(FAILURE);
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+		// Two failures out of the last four calls
+		breaker.onResult(FAILURE);
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void halfOpenAdmitsTrialCallsAndClosesWhenAllSucceed() {
+		KeycloakCircuitBreaker breaker = opened(breaker(2, 2, Duration.ZERO, 2));
+
+		breaker.acquirePermission();
+		assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+		breaker.acquirePermission();
+		assertThatThrownBy(breaker::acquirePermission).isInstanceOf(KeycloakUnavailableException.class);
+
+		breaker.onResult(null);
+		assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+		breaker.onResult(null);
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void failedTrialCallOpensTheCircuitAgain() {
+		KeycloakCircuitBreaker breaker = opened(breaker(2, 2, Duration.ZERO, 2));
+
+		breaker.acquirePermission();
+		breaker.onResult(FAILURE);
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void trialCallRejectedByTheBulkheadGivesItsPermissionBack() {
+		KeycloakCircuitBreaker breaker = opened(breaker(2, 2, Duration.ZERO, 2));
+		KeycloakExecutionProperties executionProperties = new KeycloakExecutionProperties();
+		executionProperties.setMaxConcurrentCalls(1);
+		executionProperties.setAcquireTimeout(Duration.ZERO);
+		KeycloakCallGuard guard = new KeycloakCallGuard(executionProperties, breaker, meterRegistry);
+
+		// The first trial call holds the only slot
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		CompletableFuture<String> first = guard.callAsync("users.list", () -> pending);
+		assertThatThrownBy(() -> guard.call("users.list", () -> "second"))
+				.isInstanceOf(KeycloakUnavailableException.class)
+				.hasMessageContaining("Too many concurrent calls");
+
+		pending.complete("first");
+		assertThat(first.join()).isEqualTo("first");
+		assertThat(guard.call("users.list", () -> "third")).isEqualTo("third");
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+	}
+
+	private KeycloakCircuitBreaker breaker(int windowSize, int minimumCalls, Duration openDuration, int halfOpenCalls) {
+		KeycloakResilienceProperties properties = new KeycloakResilienceProperties();
+		properties.setSlidingWindowSize(windowSize);
+		properties.setMinimumCalls(minimumCalls);
+		properties.setFailureRateThreshold(50);
+		properties.setOpenDuration(openDuration);
+		properties.setHalfOpenCalls(halfOpenCalls);
+		return new KeycloakCircuitBreaker(properties, meterRegistry);
+	}
+
+	private static KeycloakCircuitBreaker opened(KeycloakCircuitBreaker breaker) {
+		breaker.onResult(FAILURE);
+		breaker.onResult(FAILURE);
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		return breaker;
+	}
+}
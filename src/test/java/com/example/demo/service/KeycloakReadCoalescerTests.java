@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.configuration.KeycloakResilienceProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Joining, stale results and invalidation of {@link KeycloakReadCoalescer}.
+ */
+class KeycloakReadCoalescerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final KeycloakReadCoalescer reads = new KeycloakReadCoalescer(new KeycloakResilienceProperties(), meterRegistry);
+	private final AtomicInteger loads = new AtomicInteger();
+	private final CountDownLatch loading = new CountDownLatch(1);
+	private final CountDownLatch releaseLoad = new CountDownLatch(1);
+
+	@Test
+	void identicalReadJoinsTheOneInFlight() throws InterruptedException {
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> reads.read("users.all", "key", this::slowLoad));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> reads.read("users.all", "key", this::slowLoad));
+		awaitCoalesced(1);
+
+		releaseLoad.countDown();
+		assertThat(first.join()).isEqualTo("loaded");
+		assertThat(second.join()).isEqualTo("loaded");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void lastResultIsServedWhileKeycloakIsUnavailable() {
+		assertThat(reads.read("users.all", "key", () -> "fresh")).isEqualTo("fresh");
+
+		assertThat(reads.<String>read("users.all", "key", () -> {
+			throw new KeycloakUnavailableException("Keycloak circuit breaker is open");
+		})).isEqualTo("fresh");
+		assertThat(meterRegistry.get("keycloak.admin.reads.stale").tag("read", "users.all").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void answersAndUnknownReadsAreNotReplaced() {
+		reads.read("users.all", "key", () -> "fresh");
+
+		assertThatThrownBy(() -> reads.read("users.all", "key", () -> {
+			throw new NotFoundException();
+		})).isInstanceOf(NotFoundException.class);
+		assertThatThrownBy(() -> reads.read("users.all", "other", () -> {
+			throw new KeycloakUnavailableException("Keycloak circuit breaker is open");
+		})).isInstanceOf(KeycloakUnavailableException.class);
+	}
+
+	@Test
+	void readsAfterInvalidateDoNotJoinEarlierCalls() throws InterruptedException {
+		CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> reads.read("users.all", "key", this::slowLoad));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+		reads.invalidate();
+		assertThat(reads.read("users.all", "key", () -> {
+			loads.incrementAndGet();
+			return "after change";
+		})).isEqualTo("after change");
+
+		releaseLoad.countDown();
+		assertThat(before.join()).isEqualTo("loaded");
+		assertThat(loads).hasValue(2);
+	}
+
+	private String slowLoad() {
+		loads.incrementAndGet();
+		loading.countDown();
+		try {
+			releaseLoad.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "loaded";
+	}
+
+	private void awaitCoalesced(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.find("keycloak.admin.reads.coalesced").counters().stream()
+				.mapToDouble(counter -> counter.count()).sum() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
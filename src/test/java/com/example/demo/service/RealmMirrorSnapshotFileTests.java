@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.bean.UserSummary;
+
+/**
+ * Reading back valid, damaged and foreign files with {@link RealmMirrorSnapshotFile}.
+ */
+class RealmMirrorSnapshotFileTests {
+
+	private static final int MAGIC = 0x524D5331;
+
+	private final RoleSetInterner roleSets = new RoleSetInterner(100, 100);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsBackWhatWasWritten() throws IOException {
+		Path file = directory.resolve("mirror.bin");
+		RealmMirrorSnapshotFile.Contents contents = contents();
+		RealmMirrorSnapshotFile.write(file, contents);
+
+		RealmMirrorSnapshotFile.Contents read = RealmMirrorSnapshotFile.read(file, roleSets);
+		assertThat(read).isEqualTo(contents);
+		assertThat(RealmMirrorSnapshotFile.read(directory.resolve("missing.bin"), roleSets)).isNull();
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws IOException {
+		Path file = directory.resolve("mirror.bin");
+		RealmMirrorSnapshotFile.write(file, contents());
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+		assertThatThrownBy(() -> RealmMirrorSnapshotFile.read(file, roleSets)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void rejectsCorruptedFile() throws IOException {
+		Path file = directory.resolve("mirror.bin");
+		RealmMirrorSnapshotFile.write(file, contents());
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 0x40;
+		Files.write(file, bytes);
+
+		assertThatThrownBy(() -> RealmMirrorSnapshotFile.read(file, roleSets))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("checksum");
+	}
+
+	@Test
+	void rejectsForeignFile() throws IOException {
+		Path file = directory.resolve("mirror.bin");
+		Files.writeString(file, "{\"users\": []}");
+
+		assertThatThrownBy(() -> RealmMirrorSnapshotFile.read(file, roleSets)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void rejectsCountsAndLengthsBeyondTheFileWithoutAllocatingThem() throws IOException {
+		// Checksummed correctly, so only the bounds checks stand between these and the allocation
+		assertCorrupt(file(out -> out.writeInt(Integer.MAX_VALUE)));
+		assertCorrupt(file(out -> out.writeInt(-5)));
+		assertCorrupt(file(out -> {
+			out.writeInt(0);
+			out.writeInt(Integer.MAX_VALUE / 2);
+		}));
+		assertCorrupt(file(out -> {
+			out.writeInt(1);
+			out.writeInt(Integer.MAX_VALUE);
+		}));
+		assertCorrupt(file(out -> {
+			out.writeInt(0);
+			out.writeInt(1);
+			for (int i = 0; i < 4; i++) {
+				writeString(out, "x");
+			}
+			out.writeInt(1);
+			out.writeInt(7);
+		}));
+	}
+
+	private void assertCorrupt(Path file) {
+		assertThatThrownBy(() -> RealmMirrorSnapshotFile.read(file, roleSets))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("Corrupt");
+	}
+
+	/**
+	 * Writes a checksummed file with a valid header followed by {@code body}, which starts at the role count.
+	 */
+	private Path file(Body body) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		writeString(out, "http://keycloak/realms/test");
+		out.writeLong(0);
+		out.writeLong(0);
+		body.write(out);
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		Path file = Files.createTempFile(directory, "crafted", ".bin");
+		Files.write(file, bytes.toByteArray());
+		return file;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static RealmMirrorSnapshotFile.Contents contents() {
+		return new RealmMirrorSnapshotFile.Contents("http://keycloak/realms/test", Instant.ofEpochMilli(1_700_000_000_000L),
+				42, Map.of(
+						"id-alice", new UserSummary("alice", "alice@example.com", "Alice", List.of("admin", "user")),
+						"id-bob", new UserSummary("bob", null, "", List.of())));
+	}
+
+	private interface Body {
+
+		void write(DataOutputStream out) throws IOException;
+	}
+}
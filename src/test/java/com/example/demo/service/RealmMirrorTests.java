@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.RealmMirrorProperties;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Local changes and full syncs of {@link RealmMirror}.
+ */
+class RealmMirrorTests {
+
+	private final KeycloakAdminClient adminClient = mock(KeycloakAdminClient.class);
+	private final UsernameIndex usernameIndex = new UsernameIndex();
+	private final RealmMirrorProperties properties = new RealmMirrorProperties();
+	private RealmMirror mirror;
+
+	@BeforeEach
+	void setUp() {
+		properties.setFullSyncInterval(Duration.ZERO);
+		when(adminClient.listRealmRoles()).thenReturn(CompletableFuture.completedFuture(List.of()));
+		when(adminClient.listAdminEvents(any(), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(List.of()));
+		realm(user("id-alice", "alice"), user("id-carol", "carol"));
+		mirror = new RealmMirror(adminClient, usernameIndex, new RoleSetInterner(100, 100), properties,
+				new SimpleMeterRegistry(), "http://keycloak", "test");
+		mirror.sync();
+	}
+
+	@Test
+	void localChangesAreMergedInUsernameOrder() {
+		mirror.onUserCreated(new UserCreatedEvent("id-bob", summary("bob")));
+		mirror.onUserCreated(new UserCreatedEvent("id-aaron", summary("aaron")));
+		mirror.onUserCreated(new UserCreatedEvent("id-zoe", summary("zoe")));
+		mirror.onUserDeleted(new UserDeletedEvent("id-carol", "carol"));
+
+		assertThat(mirror.users()).extracting(UserSummary::username).containsExactly("aaron", "alice", "bob", "zoe");
+		assertThat(mirror.userId("Bob")).isEqualTo("id-bob");
+		assertThat(mirror.userId("carol")).isNull();
+		assertThat(mirror.users(1, 2)).extracting(UserSummary::username).containsExactly("alice", "bob");
+	}
+
+	@Test
+	void renamedUserMovesToItsNewPosition() {
+		mirror.onUserCreated(new UserCreatedEvent("id-alice", summary("zara")));
+
+		assertThat(mirror.users()).extracting(UserSummary::username).containsExactly("carol", "zara");
+		assertThat(mirror.userId("alice")).isNull();
+		assertThat(mirror.userId("zara")).isEqualTo("id-alice");
+		assertThat(usernameIndex.get("alice")).isNull();
+	}
+
+	@Test
+	void fullSyncDropsUsernamesThatNoLongerExist() {
+		usernameIndex.put("ghost", "id-ghost");
+		realm(user("id-alice", "alice"), user("id-dave", "dave"));
+
+		mirror.sync();
+
+		assertThat(mirror.users()).extracting(UserSummary::username).containsExactly("alice", "dave");
+		assertThat(usernameIndex.get("ghost")).isNull();
+		assertThat(usernameIndex.get("carol")).isNull();
+		assertThat(usernameIndex.get("dave")).isEqualTo("id-dave");
+	}
+
+	private void realm(UserRepresentation... users) {
+		when(adminClient.listUsers(anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(List.of(users)));
+	}
+
+	private static UserRepresentation user(String id, String username) {
+		UserRepresentation user = new UserRepresentation();
+		user.setId(id);
+		user.setUsername(username);
+		return user;
+	}
+
+	private static UserSummary summary(String username) {
+		return new UserSummary(username, username + "@example.com", username, List.of("user"));
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.RoleRepresentation;
+
+/**
+ * Reloads of {@link RealmRoleCatalog} on lookups of unknown roles.
+ */
+class RealmRoleCatalogTests {
+
+	private final KeycloakAdminClient adminClient = mock(KeycloakAdminClient.class);
+
+	@Test
+	void concurrentMissesShareOneReload() throws InterruptedException {
+		CountDownLatch reloading = new CountDownLatch(1);
+		CountDownLatch releaseReload = new CountDownLatch(1);
+		when(adminClient.listRealmRoles())
+				.thenReturn(CompletableFuture.completedFuture(List.of(role("user"))))
+				.thenAnswer(invocation -> {
+					reloading.countDown();
+					releaseReload.await(5, TimeUnit.SECONDS);
+					return CompletableFuture.completedFuture(List.of(role("user"), role("auditor")));
+				});
+		RealmRoleCatalog catalog = new RealmRoleCatalog(adminClient, Duration.ZERO);
+		assertThat(catalog.get("user")).isNotNull();
+
+		List<CompletableFuture<RoleRepresentation>> lookups = new ArrayList<>();
+		lookups.add(CompletableFuture.supplyAsync(() -> catalog.get("auditor")));
+		assertThat(reloading.await(5, TimeUnit.SECONDS)).isTrue();
+		List<Thread> waiting = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			CompletableFuture<RoleRepresentation> lookup = new CompletableFuture<>();
+			Thread thread = new Thread(() -> lookup.complete(catalog.get("auditor")));
+			waiting.add(thread);
+			lookups.add(lookup);
+			thread.start();
+		}
+		for (Thread thread : waiting) {
+			while (thread.getState() != Thread.State.BLOCKED) {
+				Thread.sleep(1);
+			}
+		}
+
+		releaseReload.countDown();
+		for (CompletableFuture<RoleRepresentation> lookup : lookups) {
+			assertThat(lookup.join().getName()).isEqualTo("auditor");
+		}
+		verify(adminClient, times(2)).listRealmRoles();
+	}
+
+	@Test
+	void missesWithinTheMinimumIntervalDoNotReload() {
+		when(adminClient.listRealmRoles()).thenReturn(CompletableFuture.completedFuture(List.of(role("user"))));
+		RealmRoleCatalog catalog = new RealmRoleCatalog(adminClient, Duration.ofMinutes(1));
+
+		assertThat(catalog.get("auditor")).isNull();
+		assertThat(catalog.get("auditor")).isNull();
+		verify(adminClient, times(1)).listRealmRoles();
+	}
+
+	private static RoleRepresentation role(String name) {
+		RoleRepresentation role = new RoleRepresentation();
+		role.setName(name);
+		return role;
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.event.UserCreatedEvent;
+import com.example.demo.event.UserDeletedEvent;
+
+/**
+ * Deltas, retention and reconciling of {@link UserChangeLog}.
+ */
+class UserChangeLogTests {
+
+	private final UserChangeLog changeLog = new UserChangeLog(mock(UserDirectoryCache.class), 3);
+
+	@Test
+	void reportsEachChangeOnceAfterTheTickItFollows() {
+		long before = changeLog.mark();
+		changeLog.onUserCreated(new UserCreatedEvent("id-alice", user("Alice", "user")));
+		changeLog.onUserDeleted(new UserDeletedEvent("id-bob", "bob"));
+		long after = changeLog.mark();
+
+		Map<String, UserSummary> changes = changeLog.changesSince(before);
+		assertThat(changes).containsOnlyKeys("alice", "bob");
+		assertThat(changes.get("alice")).isEqualTo(user("Alice", "user"));
+		assertThat(changes.get("bob")).isNull();
+		assertThat(changeLog.changesSince(after)).isEmpty();
+	}
+
+	@Test
+	void ticksAreNotTiedToTheWallClock() {
+		long first = changeLog.mark();
+		for (int i = 0; i < 1000; i++) {
+			changeLog.mark();
+		}
+		assertThat(changeLog.mark() - first).isEqualTo(1001);
+	}
+
+	@Test
+	void ticksSurviveARoundTripThroughADouble() {
+		long before = changeLog.mark();
+		changeLog.onUserCreated(new UserCreatedEvent("id-alice", user("alice", "user")));
+
+		// What a browser does when it parses the cursor as a JSON number and sends it back
+		long parsed = (long) (double) before;
+		assertThat(parsed).isEqualTo(before).isLessThan(1L << UserChangeLog.TICK_BITS);
+		assertThat(changeLog.changesSince(parsed)).containsOnlyKeys("alice");
+	}
+
+	@Test
+	void changesDroppedFromTheLogRequireAFullListing() {
+		long start = changeLog.mark();
+		changeLog.onUserCreated(new UserCreatedEvent("id-1", user("one", "user")));
+		long afterFirst = changeLog.mark();
+		changeLog.onUserCreated(new UserCreatedEvent("id-2", user("two", "user")));
+		changeLog.onUserCreated(new UserCreatedEvent("id-3", user("three", "user")));
+		changeLog.onUserCreated(new UserCreatedEvent("id-4", user("four", "user")));
+
+		assertThat(changeLog.changesSince(start)).isNull();
+		assertThat(changeLog.changesSince(afterFirst)).containsOnlyKeys("two", "three", "four");
+	}
+
+	@Test
+	void ticksNotIssuedByThisLogRequireAFullListing() {
+		long tick = changeLog.mark();
+
+		// Another instance, or this one before a restart, uses a different epoch
+		assertThat(changeLog.changesSince(tick ^ (1L << UserChangeLog.COUNTER_BITS))).isNull();
+		assertThat(changeLog.changesSince(tick + 1000)).isNull();
+		assertThat(changeLog.changesSince(System.currentTimeMillis())).isNull();
+		assertThat(changeLog.changesSince(tick)).isEmpty();
+	}
+
+	@Test
+	void reconcileRecordsDifferencesFromTheBaseline() {
+		changeLog.reconcile(List.of(user("alice", "user"), user("bob", "user")));
+		long baseline = changeLog.mark();
+		assertThat(changeLog.changesSince(baseline)).isEmpty();
+
+		changeLog.reconcile(List.of(user("alice", "admin"), user("carol", "user")));
+
+		Map<String, UserSummary> changes = changeLog.changesSince(baseline);
+		assertThat(changes).containsOnlyKeys("alice", "bob", "carol");
+		assertThat(changes.get("alice").roles()).containsExactly("admin");
+		assertThat(changes.get("bob")).isNull();
+		assertThat(changes.get("carol")).isEqualTo(user("carol", "user"));
+
+		long reconciled = changeLog.mark();
+		changeLog.reconcile(List.of(user("alice", "admin"), user("carol", "user")));
+		assertThat(changeLog.changesSince(reconciled)).isEmpty();
+	}
+
+	private static UserSummary user(String username, String role) {
+		return new UserSummary(username, username + "@example.com", username, List.of(role));
+	}
+}
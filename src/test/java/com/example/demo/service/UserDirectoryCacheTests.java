@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.bean.UserSummary;
+import com.example.demo.configuration.UserDirectoryCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Search index builds of {@link UserDirectoryCache}.
+ */
+class UserDirectoryCacheTests {
+
+	private final RealmMirror realmMirror = mock(RealmMirror.class);
+	private final UserDirectoryCache cache = new UserDirectoryCache(mock(KeycloakAdminService.class), realmMirror,
+			new UserDirectoryCacheProperties(), new SimpleMeterRegistry());
+
+	@Test
+	void concurrentSearchesShareOneIndexPerSnapshot() throws Exception {
+		// Counts how often the index copies the directory, once per build
+		AtomicInteger builds = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<UserSummary> users = countingList(builds, user("alice"), user("bob"));
+		when(realmMirror.isReady()).thenReturn(true);
+		when(realmMirror.users()).thenReturn(users);
+
+		ExecutorService searches = Executors.newFixedThreadPool(8);
+		try {
+			List<CompletableFuture<Integer>> totals = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				totals.add(CompletableFuture.supplyAsync(() -> {
+					awaitQuietly(start);
+					return cache.search("a", null, UserSearchIndex.Sort.USERNAME, false, 0, 10).total();
+				}, searches));
+			}
+			start.countDown();
+			for (CompletableFuture<Integer> total : totals) {
+				assertThat(total.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+			}
+		} finally {
+			searches.shutdownNow();
+		}
+		assertThat(builds).hasValue(1);
+
+		List<UserSummary> changed = countingList(builds, user("alice"), user("anna"), user("bob"));
+		when(realmMirror.users()).thenReturn(changed);
+		assertThat(cache.search("a", null, UserSearchIndex.Sort.USERNAME, false, 0, 10).total()).isEqualTo(2);
+		assertThat(builds).hasValue(2);
+	}
+
+	private static List<UserSummary> countingList(AtomicInteger builds, UserSummary... users) {
+		return new ArrayList<>(List.of(users)) {
+			@Override
+			public <T> T[] toArray(IntFunction<T[]> generator) {
+				builds.incrementAndGet();
+				return super.toArray(generator);
+			}
+		};
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static UserSummary user(String username) {
+		return new UserSummary(username, username + "@example.com", username, List.of("user"));
+	}
+}
@@ -0,0 +1,484 @@
+package com.example.demo.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.keycloak.representations.idm.AdminEventRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the Keycloak server the application talks to.
+ *
+ * <p>Serves, on a random local port, everything the application needs from Keycloak: OpenID
+ * discovery and the JWKS of the application realm, the master realm token endpoint used by the admin
+ * client, and the admin REST endpoints called by the application (user listing, lookup, exact search,
+ * creation and deletion, realm roles, role members, role mappings and admin events). Every change to
+ * users and roles, including the ones made directly by tests, is recorded as an admin event, as
+ * Keycloak does when admin events are enabled for the realm. Access tokens for test
+ * users are signed with the key published in the JWKS. Every response can be delayed by a configurable
+ * latency to model a remote Keycloak.
+ *
+ * <p>Tests register it with {@link #registerProperties(DynamicPropertyRegistry)} from a
+ * {@code @DynamicPropertySource} method.
+ *
+ * @author Amar Pattanshetti
+ */
+
+public final class FakeKeycloak {
+
+	public static final String REALM = "secure-hello-realm";
+
+	private static FakeKeycloak shared;
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+	private final RSAKey signingKey;
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final String baseUrl;
+
+	private final Map<String, UserRepresentation> users = new LinkedHashMap<>();
+	private final Map<String, Set<String>> roleMembers = new LinkedHashMap<>();
+	private final List<AdminEventRepresentation> adminEvents = new ArrayList<>();
+
+	private volatile Duration latency = Duration.ZERO;
+
+	private FakeKeycloak() throws IOException {
+		KeyPair keyPair = rsaKeyPair();
+		this.signingKey = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+				.privateKey((RSAPrivateKey) keyPair.getPrivate())
+				.keyID("fake-keycloak-key")
+				.build();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/", this::handle);
+		this.server.setExecutor(executor);
+		this.server.start();
+		this.baseUrl = "http://localhost:" + server.getAddress().getPort();
+		addRole("user");
+		addRole("admin");
+	}
+
+	/**
+	 * @return the instance shared by all tests of the JVM, started on first use
+	 */
+	public static synchronized FakeKeycloak shared() {
+		if (shared == null) {
+			try {
+				shared = new FakeKeycloak();
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot start fake Keycloak", e);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(shared::stop));
+		}
+		return shared;
+	}
+
+	/**
+	 * Points the Keycloak-related application properties at this server.
+	 */
+	public void registerProperties(DynamicPropertyRegistry registry) {
+		String issuer = issuer();
+		registry.add("keycloak.server-url", () -> baseUrl);
+		registry.add("keycloak.realm", () -> REALM);
+		registry.add("spring.security.oauth2.client.provider.keycloak.issuer-uri", () -> issuer);
+		registry.add("spring.security.oauth2.client.provider.keycloak.authorization-uri", () -> issuer + "/protocol/openid-connect/auth");
+		registry.add("spring.security.oauth2.client.provider.keycloak.token-uri", () -> issuer + "/protocol/openid-connect/token");
+		registry.add("spring.security.oauth2.client.provider.keycloak.user-info-uri", () -> issuer + "/protocol/openid-connect/userinfo");
+		registry.add("spring.security.oauth2.client.provider.keycloak.jwk-set-uri", () -> issuer + "/protocol/openid-connect/certs");
+		registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", () -> issuer);
+		registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", () -> issuer + "/protocol/openid-connect/certs");
+	}
+
+	public String issuer() {
+		return baseUrl + "/realms/" + REALM;
+	}
+
+	/**
+	 * Delays every response by {@code latency}.
+	 */
+	public void setLatency(Duration latency) {
+		this.latency = latency;
+	}
+
+	public synchronized void addRole(String name) {
+		if (roleMembers.putIfAbsent(name, new LinkedHashSet<>()) == null) {
+			recordEvent("CREATE", "REALM_ROLE", "roles/" + name);
+		}
+	}
+
+	/**
+	 * Adds a user directly, bypassing the admin API.
+	 *
+	 * @return the id of the user
+	 */
+	public synchronized String addUser(String username, String email, String firstName, String... realmRoles) {
+		UserRepresentation user = new UserRepresentation();
+		user.setId(UUID.randomUUID().toString());
+		user.setUsername(username.toLowerCase());
+		user.setEmail(email);
+		user.setFirstName(firstName);
+		user.setEnabled(true);
+		users.put(user.getId(), user);
+		recordEvent("CREATE", "USER", "users/" + user.getId());
+		for (String role : realmRoles) {
+			addRole(role);
+			roleMembers.get(role).add(user.getId());
+		}
+		if (realmRoles.length > 0) {
+			recordEvent("CREATE", "REALM_ROLE_MAPPING", "users/" + user.getId() + "/role-mappings/realm");
+		}
+		return user.getId();
+	}
+
+	/**
+	 * Removes a user directly, bypassing the admin API.
+	 *
+	 * @return {@code true} if the user existed
+	 */
+	public synchronized boolean removeUser(String username) {
+		return users.values().stream()
+				.filter(user -> user.getUsername().equalsIgnoreCase(username))
+				.map(UserRepresentation::getId)
+				.findFirst()
+				.map(this::deleteUser)
+				.orElse(false);
+	}
+
+	public synchronized int userCount() {
+		return users.size();
+	}
+
+	/**
+	 * Issues an access token of the application realm, as Keycloak would for a login of
+	 * {@code username}.
+	 */
+	public String accessToken(String username, String... realmRoles) {
+		Instant now = Instant.now();
+		return sign(new JWTClaimsSet.Builder()
+				.issuer(issuer())
+				.subject(UUID.randomUUID().toString())
+				.jwtID(UUID.randomUUID().toString())
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plus(Duration.ofMinutes(5))))
+				.claim("typ", "Bearer")
+				.claim("azp", "secure-hello-client")
+				.claim("preferred_username", username)
+				.claim("email", username + "@example.com")
+				.claim("name", username)
+				.claim("realm_access", Map.of("roles", List.of(realmRoles)))
+				.build());
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!latency.isZero()) {
+				Thread.sleep(latency.toMillis());
+			}
+			route(exchange);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			respond(exchange, 500, Map.of("error", String.valueOf(e.getMessage())));
+		}
+	}
+
+	private void route(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		List<String> path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+				.filter(segment -> !segment.isEmpty())
+				.toList();
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+		if (path.size() >= 2 && path.get(0).equals("realms")) {
+			String realm = path.get(1);
+			String rest = String.join("/", path.subList(2, path.size()));
+			switch (rest) {
+			case ".well-known/openid-configuration" -> respond(exchange, 200, discovery(realm));
+			case "protocol/openid-connect/certs" -> respond(exchange, 200, new JWKSet(signingKey.toPublicJWK()).toJSONObject());
+			case "protocol/openid-connect/token" -> respond(exchange, 200, tokenResponse(realm));
+			default -> respond(exchange, 404, Map.of("error", "Not found"));
+			}
+			return;
+		}
+
+		if (path.size() >= 4 && path.get(0).equals("admin") && path.get(1).equals("realms")) {
+			if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+				respond(exchange, 401, Map.of("error", "HTTP 401 Unauthorized"));
+				return;
+			}
+			admin(exchange, method, path.subList(3, path.size()), query);
+			return;
+		}
+		respond(exchange, 404, Map.of("error", "Not found"));
+	}
+
+	private synchronized void admin(HttpExchange exchange, String method, List<String> path, Map<String, String> query)
+			throws IOException {
+		String resource = path.get(0);
+		if (resource.equals("users") && path.size() == 1 && method.equals("GET")) {
+			List<UserRepresentation> matches = new ArrayList<>();
+			String username = query.get("username");
+			for (UserRepresentation user : users.values()) {
+				if (username == null || user.getUsername().equalsIgnoreCase(username)
+						|| (!"true".equals(query.get("exact")) && user.getUsername().contains(username.toLowerCase()))) {
+					matches.add(user);
+				}
+			}
+			respond(exchange, 200, page(matches, query));
+		} else if (resource.equals("users") && path.size() == 1 && method.equals("POST")) {
+			UserRepresentation user = objectMapper.readValue(exchange.getRequestBody(), UserRepresentation.class);
+			boolean exists = users.values().stream().anyMatch(u -> u.getUsername().equalsIgnoreCase(user.getUsername()));
+			if (exists) {
+				respond(exchange, 409, Map.of("errorMessage", "User exists with same username"));
+				return;
+			}
+			String id = addUser(user.getUsername(), user.getEmail(), user.getFirstName());
+			exchange.getResponseHeaders().add("Location", baseUrl + "/admin/realms/" + REALM + "/users/" + id);
+			respond(exchange, 201, null);
+		} else if (resource.equals("users") && path.size() == 2 && method.equals("GET")) {
+			UserRepresentation user = users.get(path.get(1));
+			if (user == null) {
+				respond(exchange, 404, Map.of("error", "User not found"));
+				return;
+			}
+			respond(exchange, 200, user);
+		} else if (resource.equals("users") && path.size() == 2 && method.equals("DELETE")) {
+			if (!deleteUser(path.get(1))) {
+				respond(exchange, 404, Map.of("error", "User not found"));
+				return;
+			}
+			respond(exchange, 204, null);
+		} else if (resource.equals("users") && path.size() == 4 && path.get(2).equals("role-mappings")
+				&& method.equals("GET")) {
+			String id = path.get(1);
+			if (!users.containsKey(id)) {
+				respond(exchange, 404, Map.of("error", "User not found"));
+				return;
+			}
+			List<RoleRepresentation> roles = new ArrayList<>();
+			roleMembers.forEach((name, members) -> {
+				if (members.contains(id)) {
+					roles.add(role(name));
+				}
+			});
+			respond(exchange, 200, roles);
+		} else if (resource.equals("users") && path.size() == 4 && path.get(2).equals("role-mappings")
+				&& method.equals("POST")) {
+			String id = path.get(1);
+			if (!users.containsKey(id)) {
+				respond(exchange, 404, Map.of("error", "User not found"));
+				return;
+			}
+			List<RoleRepresentation> roles = objectMapper.readValue(exchange.getRequestBody(),
+					new TypeReference<List<RoleRepresentation>>() {
+					});
+			for (RoleRepresentation role : roles) {
+				Set<String> members = roleMembers.get(role.getName());
+				if (members == null) {
+					respond(exchange, 404, Map.of("error", "Role not found"));
+					return;
+				}
+				members.add(id);
+			}
+			recordEvent("CREATE", "REALM_ROLE_MAPPING", "users/" + id + "/role-mappings/realm");
+			respond(exchange, 204, null);
+		} else if (resource.equals("roles") && path.size() == 1 && method.equals("GET")) {
+			List<RoleRepresentation> roles = new ArrayList<>();
+			for (String name : roleMembers.keySet()) {
+				roles.add(role(name));
+			}
+			respond(exchange, 200, roles);
+		} else if (resource.equals("roles") && path.size() == 3 && path.get(2).equals("users") && method.equals("GET")) {
+			Set<String> members = roleMembers.get(path.get(1));
+			if (members == null) {
+				respond(exchange, 404, Map.of("error", "Could not find role"));
+				return;
+			}
+			respond(exchange, 200, page(members.stream().map(users::get).toList(), query));
+		} else if (resource.equals("admin-events") && path.size() == 1 && method.equals("GET")) {
+			long from = query.containsKey("dateFrom")
+					? LocalDate.parse(query.get("dateFrom")).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+					: 0;
+			List<AdminEventRepresentation> newestFirst = new ArrayList<>();
+			for (int i = adminEvents.size() - 1; i >= 0 && adminEvents.get(i).getTime() >= from; i--) {
+				newestFirst.add(adminEvents.get(i));
+			}
+			respond(exchange, 200, page(newestFirst, query));
+		} else {
+			respond(exchange, 404, Map.of("error", "Not found"));
+		}
+	}
+
+	private boolean deleteUser(String id) {
+		if (users.remove(id) == null) {
+			return false;
+		}
+		roleMembers.values().forEach(members -> members.remove(id));
+		recordEvent("DELETE", "USER", "users/" + id);
+		return true;
+	}
+
+	private void recordEvent(String operationType, String resourceType, String resourcePath) {
+		AdminEventRepresentation event = new AdminEventRepresentation();
+		event.setTime(System.currentTimeMillis());
+		event.setRealmId(REALM);
+		event.setOperationType(operationType);
+		event.setResourceType(resourceType);
+		event.setResourcePath(resourcePath);
+		adminEvents.add(event);
+	}
+
+	private static RoleRepresentation role(String name) {
+		RoleRepresentation role = new RoleRepresentation(name, null, false);
+		role.setId("role-" + name);
+		return role;
+	}
+
+	private static <T> List<T> page(List<T> items, Map<String, String> query) {
+		int first = Integer.parseInt(query.getOrDefault("first", "0"));
+		int max = Integer.parseInt(query.getOrDefault("max", "100"));
+		if (first >= items.size()) {
+			return List.of();
+		}
+		return new ArrayList<>(items.subList(first, Math.min(items.size(), first + max)));
+	}
+
+	private Map<String, Object> discovery(String realm) {
+		String issuer = baseUrl + "/realms/" + realm;
+		Map<String, Object> discovery = new LinkedHashMap<>();
+		discovery.put("issuer", issuer);
+		discovery.put("authorization_endpoint", issuer + "/protocol/openid-connect/auth");
+		discovery.put("token_endpoint", issuer + "/protocol/openid-connect/token");
+		discovery.put("userinfo_endpoint", issuer + "/protocol/openid-connect/userinfo");
+		discovery.put("jwks_uri", issuer + "/protocol/openid-connect/certs");
+		discovery.put("response_types_supported", List.of("code"));
+		discovery.put("subject_types_supported", List.of("public"));
+		discovery.put("id_token_signing_alg_values_supported", List.of("RS256"));
+		discovery.put("grant_types_supported", List.of("authorization_code", "refresh_token", "password"));
+		return discovery;
+	}
+
+	private Map<String, Object> tokenResponse(String realm) {
+		Instant now = Instant.now();
+		String accessToken = sign(new JWTClaimsSet.Builder()
+				.issuer(baseUrl + "/realms/" + realm)
+				.subject("admin")
+				.jwtID(UUID.randomUUID().toString())
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plusSeconds(60)))
+				.claim("azp", "admin-cli")
+				.claim("preferred_username", "admin")
+				.build());
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("access_token", accessToken);
+		response.put("expires_in", 60);
+		response.put("refresh_token", UUID.randomUUID().toString());
+		response.put("refresh_expires_in", 1800);
+		response.put("token_type", "Bearer");
+		response.put("scope", "profile email");
+		return response;
+	}
+
+	private String sign(JWTClaimsSet claims) {
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+		try {
+			jwt.sign(new RSASSASigner(signingKey));
+		} catch (JOSEException e) {
+			throw new IllegalStateException(e);
+		}
+		return jwt.serialize();
+	}
+
+	private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+		drain(exchange.getRequestBody());
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		byte[] bytes = objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static void drain(InputStream in) throws IOException {
+		in.transferTo(OutputStream.nullOutputStream());
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+			String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+			query.put(key, value);
+		}
+		return query;
+	}
+
+	private static KeyPair rsaKeyPair() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			return generator.generateKeyPair();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}